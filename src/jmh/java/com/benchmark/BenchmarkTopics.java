@@ -0,0 +1,31 @@
+package com.benchmark;
+
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+
+// Topics shared by the benchmarks, same shapes as the README examples
+final class BenchmarkTopics {
+    static final String PAYMENT_REQUEST = """
+        {
+          "topicName": "PaymentRequest",
+          "correlatorId": 987654,
+          "paymentAmount": 120.50,
+          "email": "test.user@example.com",
+          "creditCard": "4111111111111111",
+          "cvc": "123"
+        }
+        """;
+
+    private BenchmarkTopics() {}
+
+    static PaymentResponse paymentResponse() {
+        PaymentResponse paymentResponse = new PaymentResponse();
+        paymentResponse.setTopicName("PaymentResponse");
+        paymentResponse.setCorrelatorId(987654);
+        paymentResponse.setPaymentAmount(120.50);
+        paymentResponse.setEmail("test.user@example.com");
+        paymentResponse.setCreditCard("4111111111111111");
+        paymentResponse.setStatus(Status.SUCCESSFUL);
+        return paymentResponse;
+    }
+}
@@ -0,0 +1,109 @@
+package com.benchmark;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.logging.PayloadLogger;
+
+/*
+ * Logging cost of one PaymentRequest on the request thread, written to a discarding stream so
+ * only the logging pipeline is measured, with 8 request threads competing for the appender.
+ *   legacy   full body on every request, string concatenated messages
+ *   sampled  PayloadLogger at 1/1000 with redaction, parameterized messages
+ * appender SYNC is the old console setup, ASYNC the AsyncAppender from logback-spring.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoggingBenchmark {
+    @Param({"SYNC", "ASYNC"})
+    public String appender;
+
+    private Logger log;
+    private Appender<ILoggingEvent> root;
+    private PayloadLogger payloadLogger;
+    private JSONObject payload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss} [%level] - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+        root = sink;
+
+        if ("ASYNC".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.setIncludeCallerData(false);
+            async.addAppender(sink);
+            async.start();
+            root = async;
+        }
+
+        Logger rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+        rootLogger.addAppender(root);
+        log = context.getLogger(LoggingBenchmark.class);
+        payloadLogger = new PayloadLogger(1000);
+        payload = new JSONObject(BenchmarkTopics.PAYMENT_REQUEST);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        root.stop();
+    }
+
+    @Benchmark
+    public void legacy() {
+        log.info("JSON: " + payload.toString());
+        log.info("Received a PaymentRequest, posting record into the database...");
+        log.info("PaymentRequest processed with status: " + "SUCCESSFUL" + " ID: " + payload.getInt("correlatorId"));
+        log.info("Creating a PaymentResponse... with status: " + "SUCCESSFUL");
+    }
+
+    @Benchmark
+    public void sampled() {
+        payloadLogger.log("PaymentRequest", payload);
+        log.info("Received a PaymentRequest, posting record into the database...");
+        log.info("PaymentRequest processed with status: {} ID: {}", "SUCCESSFUL", payload.getInt("correlatorId"));
+        log.info("Creating a PaymentResponse... with status: {}", "SUCCESSFUL");
+    }
+}
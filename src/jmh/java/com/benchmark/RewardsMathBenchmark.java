@@ -0,0 +1,72 @@
+package com.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.businessLogic.RewardsMath;
+
+/*
+ * Redemption + accrual for one payment, the boxed Double math BusinessLogic/AsyncLogic used to do
+ * against RewardsMath. Run with -prof gc to compare the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RewardsMathBenchmark {
+    private static final int SIZE = 1024;
+
+    private final double[] amounts = new double[SIZE];
+    private final int[] points = new int[SIZE];
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < SIZE; i++) {
+            amounts[i] = random.nextInt(1, 100_000) / 100.0;
+            points[i] = random.nextInt(0, 50_000);
+        }
+    }
+
+    @Benchmark
+    public void legacyDouble(Blackhole bh) {
+        int i = index++ & (SIZE - 1);
+        Double paymentAmount = amounts[i];
+        Double rewardPoints = (double) points[i];
+
+        Double cappedPoints = Math.min(rewardPoints, paymentAmount * 200);
+        Double discountedAmount = paymentAmount - (cappedPoints / 200.0);
+        int remainingPoints = rewardPoints.intValue() - cappedPoints.intValue();
+        int accrued = (int) (discountedAmount * 10);
+
+        bh.consume(discountedAmount);
+        bh.consume(remainingPoints);
+        bh.consume(accrued);
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole bh) {
+        int i = index++ & (SIZE - 1);
+        long amountUnits = RewardsMath.toUnits(amounts[i]);
+        long redeemed = RewardsMath.redeemedPoints(amountUnits, points[i]);
+        long cashUnits = RewardsMath.cashUnits(amountUnits, redeemed);
+
+        bh.consume(cashUnits);
+        bh.consume(points[i] - redeemed);
+        bh.consume(RewardsMath.accruedPoints(cashUnits));
+    }
+}
@@ -0,0 +1,54 @@
+package com.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import com.schema.SchemaRegistry;
+import com.schema.SchemaValidator;
+
+/*
+ * SchemaValidator.validateJson for a PaymentRequest. warm validates against the schema already in
+ * the SchemaRegistry, cold starts from an empty registry so every call compiles the schema first
+ * (what every request paid before the registry existed).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaValidationBenchmark {
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+    private SchemaValidator warmValidator;
+    private JSONObject paymentRequest;
+
+    @Setup
+    public void setup() {
+        SchemaRegistry registry = new SchemaRegistry(resourceLoader);
+        registry.init();
+        warmValidator = new SchemaValidator(resourceLoader, registry);
+        paymentRequest = new JSONObject(BenchmarkTopics.PAYMENT_REQUEST);
+    }
+
+    @Benchmark
+    public boolean warm() {
+        return warmValidator.validateJson("PaymentRequest", paymentRequest);
+    }
+
+    @Benchmark
+    public boolean cold() {
+        SchemaValidator validator = new SchemaValidator(resourceLoader, new SchemaRegistry(resourceLoader));
+        return validator.validateJson("PaymentRequest", paymentRequest);
+    }
+}
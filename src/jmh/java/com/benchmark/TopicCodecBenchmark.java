@@ -0,0 +1,71 @@
+package com.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import com.json.JsonCodec;
+import com.schema.SchemaRegistry;
+import com.schema.SchemaValidator;
+import com.topics.PaymentRequest;
+import com.topics.PaymentResponse;
+
+/*
+ * The JSON work of one /api/v1/processTopic call outside of the business logic:
+ *   parseAndBind    what MainController.processRestTopics does before BusinessLogic, parse the body
+ *                   once, validate the tree against the warm schema and bind it to a PaymentRequest
+ *   writeResponse   PaymentResponse serialization as done by the TopicMessageConverter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicCodecBenchmark {
+    private final JsonCodec jsonCodec = new JsonCodec();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+    private SchemaValidator schemaValidator;
+    private byte[] body;
+    private PaymentResponse paymentResponse;
+
+    @Setup
+    public void setup() {
+        DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+        SchemaRegistry registry = new SchemaRegistry(resourceLoader);
+        registry.init();
+        schemaValidator = new SchemaValidator(resourceLoader, registry);
+        body = BenchmarkTopics.PAYMENT_REQUEST.getBytes(StandardCharsets.UTF_8);
+        paymentResponse = BenchmarkTopics.paymentResponse();
+    }
+
+    @Benchmark
+    public PaymentRequest parseAndBind() throws IOException {
+        JSONObject jsonNode = jsonCodec.parse(new ByteArrayInputStream(body));
+        String topicName = jsonNode.getString("topicName");
+        if (!schemaValidator.validateJson(topicName, jsonNode)) {
+            throw new IllegalStateException("benchmark topic failed validation");
+        }
+        return jsonCodec.bind(jsonNode, PaymentRequest.class);
+    }
+
+    @Benchmark
+    public int writeResponse() throws IOException {
+        out.reset();
+        jsonCodec.write(out, paymentResponse);
+        return out.size();
+    }
+}
@@ -5,8 +5,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// the R2DBC transaction manager would stand in for the JPA one, the reactive inserts don't need it
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class SpringBootConsoleApplication implements CommandLineRunner {
 
     private static Logger LOG = LoggerFactory.getLogger(SpringBootConsoleApplication.class);
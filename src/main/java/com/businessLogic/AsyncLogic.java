@@ -1,56 +1,47 @@
 package com.businessLogic;
 
-import java.util.HashMap;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.topics.AccountInfoRequest;
-import com.topics.AccountInfoResponse;
+import com.cache.AccountCache;
+import com.cache.SessionUserCache;
+import com.config.ExecutionConfig;
+import com.deadline.Deadline;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamClients;
+import com.downstream.DownstreamService;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
 import com.topics.PaymentRequest;
-import com.topics.RewardsRequest;
-import com.topics.RewardsRequest.Application;
-import com.topics.RewardsResponse;
-import jakarta.annotation.PostConstruct;
 
 @Service
 public class AsyncLogic {
     private static final Logger LOG = LoggerFactory.getLogger(BusinessLogic.class);
-
-    // REST Clients to communicate with other microservices
-    private RestClient userServiceClient = RestClient.create();
-    private RestClient sessionManagerClient = RestClient.create();
-
-    @Value("${user.management.service}")
-    private String userManagementService;
-    @Value("${user.management.service.port}")
-    private String userManagementServicePort;
-    private String ums;
-
-    @Value("${session.manager}")
-    private String sessionManager;
-    @Value("${session.manager.port}")
-    private String sessionManagerPort;
-    private String sm;
-
-    private HashMap<String, RestClient> restRouter = new HashMap<>();
-    private HashMap<RestClient, String> restEndpoints = new HashMap<>();
-
-    @PostConstruct
-    public void init() {
-        sm = "http://" + sessionManager + ":" + sessionManagerPort + "/api/v1/user";
-        restEndpoints.put(sessionManagerClient, sm);
-        LOG.info("AsyncLogic initialized with Session Manager at: " + sm);
-
-        ums = "http://" + userManagementService + ":" + userManagementServicePort + "/api/v1/processTopic";
-        restRouter.put("RewardsRequest", userServiceClient);
-        restRouter.put("AccountInfoRequest", userServiceClient);
-        restEndpoints.put(userServiceClient, ums);
-        LOG.info("AsyncLogic initialized with User Management Service at: " + ums);
+    private static final String PAYMENT_TOPIC = "PaymentRequest";
+
+    // REST Clients to communicate with other microservices, pooled per service
+    private final DownstreamClients downstreamClients;
+    private final AccountCache accountCache;
+    private final SessionUserCache sessionUserCache;
+    private final RewardsAccrualAggregator rewardsAccrual;
+    private final PipelineMetrics metrics;
+
+    // time budget of the rewards work, it runs after the response so the request deadline doesn't apply
+    private final Duration rewardsBudget;
+
+    public AsyncLogic(DownstreamClients downstreamClients, AccountCache accountCache,
+            SessionUserCache sessionUserCache, RewardsAccrualAggregator rewardsAccrual, PipelineMetrics metrics,
+            @Value("${rewards.deadline-ms:10000}") long rewardsDeadlineMs) {
+        this.downstreamClients = downstreamClients;
+        this.accountCache = accountCache;
+        this.sessionUserCache = sessionUserCache;
+        this.rewardsAccrual = rewardsAccrual;
+        this.metrics = metrics;
+        this.rewardsBudget = Duration.ofMillis(rewardsDeadlineMs);
     }
 
     /* Method to map topics to their respective microservices and endpoints
@@ -67,84 +58,49 @@ public class AsyncLogic {
     */
 
     // get current logged in user from the session manager
-    // then get the account info from the user management service
-    // finally send a rewards request to the user management service
-    @Async 
-    public void handleRewards(PaymentRequest paymentRequest, Double discountedAmount) {
-        System.out.println("\n");
+    // then hand the earned points to the RewardsAccrualAggregator, which gets the account info
+    // and sends the rewards request to the user management service
+    @Async(ExecutionConfig.REWARDS_EXECUTOR)
+    public void handleRewards(PaymentRequest paymentRequest, long cashUnits) {
         LOG.info("ASYNC logic handling new reward points...");
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            String user = sessionManagerClient.get()
-                .uri(restEndpoints.get(sessionManagerClient))
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .body(String.class);
-
-            LOG.info("Session Manager returned user: " + user);
-
-            if(user != null && !user.equals("NO-USER")) {
-                // send AccountInfoRequest to user-management-service
-                AccountInfoRequest accountInfoRequest = new AccountInfoRequest();
-                accountInfoRequest.setTopicName("AccountInfoRequest");
-                accountInfoRequest.setEmail(paymentRequest.getEmail());
-                accountInfoRequest.setUsername(user);
-                accountInfoRequest.setCorrelatorId(paymentRequest.getCorrelatorId());
-
-                String AccountResponse = userServiceClient.post()
-                    .uri(restEndpoints.get(restRouter.get("AccountInfoRequest")))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(accountInfoRequest)
+        try (Deadline.Scope ignored = Deadline.after(rewardsBudget).attach()) {
+            DownstreamClient sessionManager = downstreamClients.get(DownstreamService.SESSION_MANAGER);
+            long start = metrics.start();
+            String user = null;
+            try {
+                // concurrent payments share one lookup, the answer is reused for session.cache.ttl-ms
+                user = sessionUserCache.get(() -> sessionManager.call(() -> sessionManager.getRestClient().get()
+                    .uri(sessionManager.getUri())
+                    .accept(MediaType.APPLICATION_JSON)
                     .retrieve()
-                    .body(String.class);
-                LOG.info("Sent an AccountInfoRequest to the User Management Service...");
-                
-                if(AccountResponse == null) {
-                    LOG.warn("AccountInfoResponse is null, cannot proceed with rewards processing.");
-                    return;
-                }
-                AccountInfoResponse account = mapper.readValue(AccountResponse, AccountInfoResponse.class);
-
-                int rewardPoints = account.getRewardPoints();
-                int newPoints = rewardPoints + (int)(discountedAmount * 10);
-                if(discountedAmount == 0) {
-                    LOG.info(user + " had " + rewardPoints + " reward points. No new points were added because the total was $0.00.");
-                }
-                else
-                {
-                    LOG.info(user + " initially had " + rewardPoints + " reward points. The user now has " + newPoints + " points.");
-                }
-                
-                // send RewardsRequest to user-management-service
-                RewardsRequest rewardsRequest = new RewardsRequest();
-                rewardsRequest.setTopicName("RewardsRequest");
-                rewardsRequest.setCorrelatorId(paymentRequest.getCorrelatorId());
-                rewardsRequest.setEmail(paymentRequest.getEmail());
-                rewardsRequest.setName(account.getName());
-                rewardsRequest.setUsername(user);
-                rewardsRequest.setRewardPoints(newPoints);
-                rewardsRequest.setApplication(Application.REWARD_POINTS_ADDED);
-                
-                String rewardsResponse = userServiceClient
-                    .post()
-                    .uri(restEndpoints.get(restRouter.get("RewardsRequest")))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(rewardsRequest)
-                    .retrieve()
-                    .body(String.class);
+                    .body(String.class)));
+            } finally {
+                metrics.record(Stage.SESSION_LOOKUP, PAYMENT_TOPIC, user != null, start);
+            }
 
-                RewardsResponse rewardStatus = mapper.readValue(rewardsResponse, RewardsResponse.class);
+            LOG.info("Session Manager returned user: {}", user);
 
-                if(rewardStatus == null) {
-                    LOG.warn("RewardsResponse is null, rewards processing may have failed.");
+            if(user != null && !user.equals("NO-USER")) {
+                long points = RewardsMath.accruedPoints(cashUnits);
+                if(points == 0) {
+                    // the RewardsRequest would only write back the balance it read
+                    LOG.info("No new reward points for {} because the total was $0.00.", user);
                     return;
                 }
-                LOG.info("Sent a RewardsRequest to the User Management Service... Received response: " + rewardStatus.getApplication());
+                // 10 points per dollar paid in cash, sent combined with the user's other payments of the window
+                rewardsAccrual.accrue(paymentRequest.getEmail(), user, paymentRequest.getCorrelatorId(), points);
             } else {
                 LOG.info("No user logged in, skipping sending RewardsRequest and AccountInfoRequest to User Management Service");
             }
 
         } catch (Exception e) {
+            if (DownstreamClient.isNotSent(e)) {
+                LOG.warn("Skipped reward points for {}, downstream service unavailable or too late: {}",
+                        paymentRequest.getEmail(), e.getMessage());
+                return;
+            }
+            // the accrual may or may not have been applied, never keep the old balance
+            accountCache.invalidate(paymentRequest.getEmail());
             LOG.error("Failed to process rewards", e);
         }
     }
@@ -0,0 +1,198 @@
+package com.businessLogic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import com.config.ExecutionConfig;
+import com.json.JsonCodec;
+import com.json.TopicStreamReader;
+import com.schema.SchemaValidator;
+import com.topics.PaymentRequest;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+
+/*
+ * Processes a stream of PaymentRequest topics. Topics are read one at a time from the body,
+ * validated and handed to BusinessLogic with at most bulk.max-parallelism in flight, so reading
+ * the body never runs ahead of processing. Each PaymentResponse is written as one NDJSON line as
+ * soon as its payment finishes, a failed payment gets a FAILED response and the batch carries on.
+ * Inserts from concurrent payments are grouped by the PaymentWriter.
+ */
+@Service
+public class BulkLogic {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkLogic.class);
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final BusinessLogic businessLogic;
+    private final SchemaValidator schemaValidator;
+    private final JsonCodec jsonCodec;
+    private final Executor bulkExecutor;
+    private final int maxParallelism;
+
+    public BulkLogic(BusinessLogic businessLogic, SchemaValidator schemaValidator, JsonCodec jsonCodec,
+            @Qualifier(ExecutionConfig.BULK_EXECUTOR) Executor bulkExecutor,
+            @Value("${bulk.max-parallelism:16}") int maxParallelism) {
+        this.businessLogic = businessLogic;
+        this.schemaValidator = schemaValidator;
+        this.jsonCodec = jsonCodec;
+        this.bulkExecutor = bulkExecutor;
+        this.maxParallelism = maxParallelism;
+    }
+
+    public void processPaymentRequests(InputStream body, OutputStream out) throws IOException {
+        TopicStreamReader reader = new TopicStreamReader(body);
+        Semaphore inFlight = new Semaphore(maxParallelism);
+        AtomicBoolean clientGone = new AtomicBoolean();
+        int received = 0;
+
+        try {
+            while (!clientGone.get()) {
+                JSONObject topic;
+                try {
+                    topic = reader.next();
+                } catch (IllegalArgumentException e) {
+                    writeLine(out, failedResponse(null), clientGone);
+                    continue;
+                } catch (JSONException e) {
+                    LOG.error("Stopped reading bulk PaymentRequests, malformed body: {}", e.getMessage());
+                    writeLine(out, failedResponse(null), clientGone);
+                    break;
+                }
+                if (topic == null) {
+                    break;
+                }
+
+                received++;
+                JSONObject paymentTopic = topic;
+                inFlight.acquire();
+                Runnable task = () -> {
+                    try {
+                        writeLine(out, process(paymentTopic), clientGone);
+                    } finally {
+                        inFlight.release();
+                    }
+                };
+                try {
+                    bulkExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.run();
+                }
+            }
+            // wait for the payments still in flight
+            inFlight.acquire(maxParallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOG.info("Finished bulk PaymentRequests, {} topics received", received);
+    }
+
+    /*
+     * Processes a batch of PaymentRequest topics, at most bulk.max-parallelism at a time, and
+     * returns their PaymentResponses in the same order once every payment has been stored. A null
+     * topic (a record that couldn't be read) gets a FAILED response.
+     */
+    public List<PaymentResponse> processBatch(List<JSONObject> topics) {
+        PaymentResponse[] responses = new PaymentResponse[topics.size()];
+        Semaphore inFlight = new Semaphore(maxParallelism);
+        try {
+            for (int i = 0; i < topics.size(); i++) {
+                JSONObject topic = topics.get(i);
+                if (topic == null) {
+                    responses[i] = failedResponse(null);
+                    continue;
+                }
+                int index = i;
+                inFlight.acquire();
+                Runnable task = () -> {
+                    try {
+                        responses[index] = process(topic);
+                    } finally {
+                        inFlight.release();
+                    }
+                };
+                try {
+                    bulkExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.run();
+                }
+            }
+            // wait for the payments still in flight, the semaphore also publishes their responses
+            inFlight.acquire(maxParallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing a PaymentRequest batch", e);
+        }
+        return Arrays.asList(responses);
+    }
+
+    private PaymentResponse process(JSONObject topic) {
+        try {
+            String topicName = topic.optString("topicName");
+            if (!"PaymentRequest".equals(topicName)) {
+                LOG.warn("Non-supported Topic in bulk request: {}", topicName);
+                return failedResponse(topic);
+            }
+            if (!schemaValidator.validateJson(topicName, topic)) {
+                return failedResponse(topic);
+            }
+
+            PaymentRequest paymentRequest = jsonCodec.bind(topic, PaymentRequest.class);
+            ResponseEntity<Object> response = businessLogic.processPaymentRequest(paymentRequest);
+            if (response.getBody() instanceof PaymentResponse paymentResponse) {
+                return paymentResponse;
+            }
+            return failedResponse(topic);
+        } catch (Exception e) {
+            LOG.error("Failed to process bulk PaymentRequest: {}", e.getMessage());
+            return failedResponse(topic);
+        }
+    }
+
+    private void writeLine(OutputStream out, PaymentResponse response, AtomicBoolean clientGone) {
+        synchronized (out) {
+            if (clientGone.get()) {
+                return;
+            }
+            try {
+                jsonCodec.write(out, response);
+                out.write(NEW_LINE);
+                out.flush();
+            } catch (IOException e) {
+                LOG.warn("Client went away during bulk PaymentRequests: {}", e.getMessage());
+                clientGone.set(true);
+            }
+        }
+    }
+
+    // FAILED response carrying whatever identifies the payment in the original topic
+    private PaymentResponse failedResponse(JSONObject topic) {
+        PaymentResponse paymentResponse = new PaymentResponse();
+        paymentResponse.setTopicName("PaymentResponse");
+        paymentResponse.setStatus(Status.FAILED);
+        if (topic != null) {
+            if (topic.has("correlatorId")) {
+                paymentResponse.setCorrelatorId(topic.optInt("correlatorId"));
+            }
+            if (topic.has("paymentAmount")) {
+                paymentResponse.setPaymentAmount(topic.optDouble("paymentAmount"));
+            }
+            paymentResponse.setEmail(topic.optString("email", null));
+            paymentResponse.setCreditCard(topic.optString("creditCard", null));
+        }
+        return paymentResponse;
+    }
+}
@@ -1,14 +1,11 @@
 package com.businessLogic;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 import com.topics.AccountInfoRequest;
 import com.topics.AccountInfoResponse;
 import com.topics.PaymentRequest;
@@ -17,10 +14,18 @@ import com.topics.PaymentResponse.Status;
 import com.topics.RewardsRequest;
 import com.topics.RewardsResponse;
 import com.topics.RewardsRequest.Application;
-import jakarta.annotation.PostConstruct;
-import jakarta.transaction.Transactional;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cache.AccountCache;
+import com.cache.CachedAccount;
+import com.cache.IdempotencyCache;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamClients;
+import com.deadline.Deadline;
+import com.deadline.DeadlineExceededException;
+import com.json.JsonCodec;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
+import com.postgres.CorrelatorClaim;
 import com.postgres.PostgresService;
 import com.postgres.models.Payment;
 
@@ -31,131 +36,300 @@ import com.postgres.models.Payment;
 @Service
 public class BusinessLogic {
     private static final Logger LOG = LoggerFactory.getLogger(BusinessLogic.class);
+    static final String PAYMENT_TOPIC = "PaymentRequest";
     private final PostgresService postgresService;
     private final AsyncLogic asyncLogic;
+    private final JsonCodec jsonCodec;
+    private final AccountCache accountCache;
+    private final IdempotencyCache idempotencyCache;
+    private final RewardsBalanceLock balanceLock;
+    private final PipelineMetrics metrics;
 
-    // REST Clients to communicate with other microservices
-    private final RestClient userServiceClient;
-    private HashMap<RestClient, String> restEndpoints = new HashMap<>();
+    // REST Clients to communicate with other microservices, pooled per service
+    private final DownstreamClients downstreamClients;
 
-    @Value("${user.management.service}")
-    private String userManagementService;
-    @Value("${user.management.service.port}")
-    private String userManagementServicePort;
-    private String ums;
-
-    public BusinessLogic(PostgresService postgresService, AsyncLogic asyncLogic, RestClient userServiceClient) {
+    public BusinessLogic(PostgresService postgresService, AsyncLogic asyncLogic,
+            DownstreamClients downstreamClients, JsonCodec jsonCodec, AccountCache accountCache,
+            IdempotencyCache idempotencyCache, RewardsBalanceLock balanceLock, PipelineMetrics metrics) {
         this.postgresService = postgresService;
         this.asyncLogic = asyncLogic;
-        this.userServiceClient = userServiceClient;
-    }
-
-    @PostConstruct
-    public void init() {
-        ums = "http://" + userManagementService + ":" + userManagementServicePort
-                + "/api/v1/processTopic";
-        restEndpoints.put(userServiceClient, ums);
-        LOG.info("Business Logic initialized with User Management Service at: " + ums);
+        this.downstreamClients = downstreamClients;
+        this.jsonCodec = jsonCodec;
+        this.accountCache = accountCache;
+        this.idempotencyCache = idempotencyCache;
+        this.balanceLock = balanceLock;
+        this.metrics = metrics;
     }
 
     /*
      * Request handlers for the various topics, which communicate through REST clients
+     *
+     * No transaction here on purpose: the REST calls of the enrichment phase run without a JDBC
+     * connection, one is only held to claim the correlatorId and for the short transaction
+     * around PostgresService.save.
      */
-    @Transactional
     public ResponseEntity<Object> processPaymentRequest(PaymentRequest paymentRequest) {
-        System.out.println("\n");
         LOG.info("Received a PaymentRequest, posting record into the database...");
 
+        // retries with the same correlatorId are answered with the original PaymentResponse
+        Long correlatorId = correlatorId(paymentRequest);
+        if (correlatorId == null) {
+            return processNewPayment(paymentRequest);
+        }
+        return idempotencyCache.execute(correlatorId, () -> processClaimedPayment(paymentRequest, correlatorId));
+    }
+
+    /*
+     * The IdempotencyCache only sees this instance, the correlatorId is claimed in the database
+     * before anything is redeemed so another instance can't process the same payment meanwhile
+     */
+    private ResponseEntity<Object> processClaimedPayment(PaymentRequest paymentRequest, Long correlatorId) {
+        if (deadlinePassed("before processing")) {
+            return deadlineExceeded();
+        }
+
+        CorrelatorClaim claim = postgresService.claimCorrelatorId(correlatorId);
+        if (claim == CorrelatorClaim.STORED) {
+            LOG.info("PaymentRequest {} was already stored", correlatorId);
+            return ResponseEntity.ok(createPaymentResponse(paymentRequest, Status.SUCCESSFUL));
+        }
+        if (claim == CorrelatorClaim.IN_PROGRESS) {
+            LOG.info("PaymentRequest {} is being processed by another request", correlatorId);
+            return inProgress();
+        }
+
+        ResponseEntity<Object> response;
+        try {
+            response = processNewPayment(paymentRequest);
+        } catch (RuntimeException e) {
+            postgresService.releaseCorrelatorId(correlatorId);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            // nothing was stored, a retry has to be able to claim it again
+            postgresService.releaseCorrelatorId(correlatorId);
+        }
+        return response;
+    }
+
+    private ResponseEntity<Object> processNewPayment(PaymentRequest paymentRequest) {
+        if (deadlinePassed("before processing")) {
+            return deadlineExceeded();
+        }
+
+        // enrichment phase, no transaction
+        long amountUnits = RewardsMath.toUnits(paymentRequest.getPaymentAmount());
+        Redemption redemption;
+        try {
+            // never next to an accrual of the same user, both write back an absolute balance
+            redemption = balanceLock.execute(paymentRequest.getEmail(),
+                    () -> redeemRewardPoints(paymentRequest, amountUnits));
+        } catch (DeadlineExceededException e) {
+            // nothing was sent yet, so nothing to store either
+            LOG.warn("{}, abandoning the PaymentRequest", e.getMessage());
+            return deadlineExceeded();
+        }
+
+        // persistence phase, the only transactional work. Stored even when the deadline passed
+        // during the redemption: the points are gone, a retry must find this payment, not redeem again
+        Payment payment = newPayment(paymentRequest, amountUnits, redemption);
+
+        long start = metrics.start();
+        Payment postgresSaveResponse = postgresService.save(payment);
+        metrics.record(Stage.SAVE, PAYMENT_TOPIC, postgresSaveResponse.getId() != null, start);
+        Status paymentStatus =
+                postgresSaveResponse.getId() != null ? Status.SUCCESSFUL : Status.FAILED;
+        LOG.info("PaymentRequest processed with status: {} ID: {}", paymentStatus, postgresSaveResponse.getId());
+        PaymentResponse paymentResponse = createPaymentResponse(paymentRequest, paymentStatus);
+
+        // send async work before returning
+        asyncLogic.handleRewards(paymentRequest, redemption.cashUnits());
+
+        // the PaymentResponse is written straight to the response stream by the TopicMessageConverter
+        return postgresSaveResponse.getId() != null ? ResponseEntity.ok(paymentResponse)
+                : ResponseEntity.status(500).body("Inernal Error Failed to process PaymentRequest");
+    }
+
+    /*
+     * Looks up the account, applies its reward points as a discount and tells the User Management
+     * Service which points were used. Throws DeadlineExceededException when the deadline passes
+     * before the RewardsRequest is sent.
+     */
+    private Redemption redeemRewardPoints(PaymentRequest paymentRequest, long amountUnits) {
         // Grabbing reward points from the User Mangement Service and auto apply the discount
-        AccountInfoRequest accountInfoRequest = new AccountInfoRequest();
-        accountInfoRequest.setTopicName("AccountInfoRequest");
-        accountInfoRequest.setEmail(paymentRequest.getEmail());
-        accountInfoRequest.setCorrelatorId(paymentRequest.getCorrelatorId());
+        AccountInfoRequest accountInfoRequest = accountInfoRequest(paymentRequest);
 
-        String accountResponse = userServiceClient.post()
-                .uri(restEndpoints.get(userServiceClient))
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(accountInfoRequest)
-                .retrieve()
-                .body(String.class);
+        // a second lookup for the same email (AsyncLogic) is served from the AccountCache
+        CachedAccount account = accountCache.get(paymentRequest.getEmail(),
+                email -> requestAccountInfo(accountInfoRequest));
         LOG.info("Attempting to find information about the account via email...");
 
-        // Total reward points, the discounted price after application,
-        // and max points in case user has more points than needed for full discount
-        Double rewardPoints = 0.0;
-        Double discountedAmount = 0.0;
-        Double cappedPoints = 0.0;
+        // Total reward points, the cash left to pay after application,
+        // and points used, capped in case user has more points than needed for full discount
+        // without an account (unknown user or user-management-service unavailable) no discount is applied
+        long rewardPoints = 0;
+        long cashUnits = amountUnits;
+        long redeemedPoints = 0;
 
-        if (accountResponse == null) {
-            LOG.warn("AccountInfoResponse is null, user may not exist.");
+        if (account == null) {
+            LOG.warn("AccountInfoResponse is null, user may not exist. Processing payment without reward points.");
         } else {
             try {
-                ObjectMapper mapper = new ObjectMapper();
-                AccountInfoResponse account =
-                        mapper.readValue(accountResponse, AccountInfoResponse.class);
-                rewardPoints = Double.valueOf(account.getRewardPoints());
-                LOG.info(account.getUsername() + " had " + rewardPoints
-                        + " reward points. Automatically applying discount at rate of [RewardPoints/200].");
-
-                discountedAmount = paymentRequest.getPaymentAmount();
-                if (rewardPoints > 0) {
-                    discountedAmount = discountedAmount - (rewardPoints / 200.0) < 0 ? 0
-                            : discountedAmount - (rewardPoints / 200.0);
-
-                    cappedPoints = Math.min(rewardPoints, paymentRequest.getPaymentAmount() * 200);
-                    String formattedPoints = String.format("$%.2f", cappedPoints / 200.0);
-                    String formattedDiscount = String.format("$%.2f", discountedAmount);
-                    LOG.info("Applied discount of " + cappedPoints + " points equating to " + formattedPoints + ", new payment amount is: "
-                            + formattedDiscount);
+                rewardPoints = account.rewardPoints();
+                LOG.info("{} had {} reward points. Automatically applying discount at rate of [RewardPoints/200].",
+                        account.username(), rewardPoints);
+
+                redeemedPoints = RewardsMath.redeemedPoints(amountUnits, rewardPoints);
+                cashUnits = RewardsMath.cashUnits(amountUnits, redeemedPoints);
+                if (rewardPoints > 0 && LOG.isInfoEnabled()) {
+                    LOG.info("Applied discount of {} points equating to {}, new payment amount is: {}",
+                            redeemedPoints, RewardsMath.format(redeemedPoints), RewardsMath.format(cashUnits));
                 }
 
                 // Update the reward points for the user, depleting the used points
-                RewardsRequest rewardsRequest = new RewardsRequest();
-                rewardsRequest.setTopicName("RewardsRequest");
-                rewardsRequest.setCorrelatorId(paymentRequest.getCorrelatorId());
-                rewardsRequest.setEmail(paymentRequest.getEmail());
-                rewardsRequest.setName(account.getName());
-                rewardsRequest.setUsername(account.getUsername());
-                rewardsRequest.setRewardPoints(rewardPoints.intValue() - cappedPoints.intValue());
-                rewardsRequest.setApplication(Application.REWARD_POINTS_REDEEMED);
-
-                String rewardResponse = userServiceClient.post()
-                    .uri(restEndpoints.get(userServiceClient))
-                    .contentType(MediaType.APPLICATION_JSON).body(rewardsRequest).retrieve()
-                    .body(String.class);
-
-                RewardsResponse response =
-                        mapper.readValue(rewardResponse, RewardsResponse.class);
-
-                LOG.info("Sent a RewardsRequest to deplete used reward points. Status: " + response.getApplication());
+                int remainingPoints = (int) (rewardPoints - redeemedPoints);
+                RewardsRequest rewardsRequest = redemptionRequest(paymentRequest, account, remainingPoints);
+
+                DownstreamClient rewardsService = downstreamClients.forTopic("RewardsRequest");
+                long start = metrics.start();
+                RewardsResponse response = null;
+                try {
+                    String rewardResponse = rewardsService.call(() -> rewardsService.getRestClient().post()
+                        .uri(rewardsService.getUri())
+                        .contentType(MediaType.APPLICATION_JSON).body(rewardsRequest).retrieve()
+                        .body(String.class));
+                    response = jsonCodec.read(rewardResponse, RewardsResponse.class);
+                } finally {
+                    metrics.record(Stage.REWARDS_REDEEM, PAYMENT_TOPIC,
+                            response != null && response.getApplication() == RewardsResponse.Application.SUCCESS, start);
+                }
+
+                LOG.info("Sent a RewardsRequest to deplete used reward points. Status: {}", response.getApplication());
+                if (response.getApplication() == RewardsResponse.Application.SUCCESS) {
+                    accountCache.updateRewardPoints(paymentRequest.getEmail(), remainingPoints);
+                } else {
+                    accountCache.invalidate(paymentRequest.getEmail());
+                }
                 
+            } catch (DeadlineExceededException e) {
+                throw e;
             } catch (Exception e) {
-                LOG.error("Error parsing AccountInfoResponse: " + e.getMessage());
+                if (DownstreamClient.isRejected(e)) {
+                    // the points were never redeemed, so no discount either
+                    LOG.warn("RewardsRequest not sent, User Management Service unavailable. Processing payment without reward points.");
+                    return new Redemption(amountUnits, 0);
+                }
+                // the redemption may or may not have been applied, never keep the old balance
+                accountCache.invalidate(paymentRequest.getEmail());
+                LOG.error("Error parsing AccountInfoResponse: {}", e.getMessage());
             }
         }
 
-        // Payment(Double paymentAmount, String email, String creditCard, String cvc)
-        Payment payment = new Payment(BigDecimal.valueOf(paymentRequest.getPaymentAmount()),
-                BigDecimal.valueOf(discountedAmount), BigDecimal.valueOf(cappedPoints/200.0),
-                paymentRequest.getEmail(), paymentRequest.getCreditCard(), paymentRequest.getCvc());
+        return new Redemption(cashUnits, redeemedPoints);
+    }
 
-        Payment postgresSaveResponse = postgresService.save(payment);
-        Status paymentStatus =
-                postgresSaveResponse.getId() != null ? Status.SUCCESSFUL : Status.FAILED;
-        LOG.info("PaymentRequest processed with status: " + paymentStatus + " ID: "
-                + postgresSaveResponse.getId());
-        PaymentResponse paymentResponse = createPaymentResponse(paymentRequest, paymentStatus);
+    private static boolean deadlinePassed(String stage) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            LOG.warn("Request deadline passed {}, abandoning the PaymentRequest", stage);
+            return true;
+        }
+        return false;
+    }
 
-        // send async work before returning
-        asyncLogic.handleRewards(paymentRequest, discountedAmount);
+    // not remembered by the IdempotencyCache, a retry processes the payment again
+    static ResponseEntity<Object> deadlineExceeded() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body("Deadline exceeded, PaymentRequest was not processed");
+    }
 
-        return postgresSaveResponse.getId() != null ? ResponseEntity.ok(toJson(paymentResponse))
-                : ResponseEntity.status(500).body("Inernal Error Failed to process PaymentRequest");
+    // another request holds the correlatorId, not remembered either so a later retry gets the outcome
+    static ResponseEntity<Object> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("PaymentRequest is already being processed, retry later");
+    }
+
+    static Long correlatorId(PaymentRequest paymentRequest) {
+        return paymentRequest.getCorrelatorId() == null ? null : paymentRequest.getCorrelatorId().longValue();
+    }
+
+    // the amount left to pay in cash and the reward points used, both in RewardsMath units
+    record Redemption(long cashUnits, long redeemedPoints) {}
+
+    /*
+     * Topics and rows shared with ReactiveBusinessLogic so both stacks send and store exactly the
+     * same thing. RewardsMath converts the fixed-point amounts to BigDecimal, cash and reward cash
+     * always add up to the payment amount.
+     */
+    static Payment newPayment(PaymentRequest paymentRequest, long amountUnits, Redemption redemption) {
+        return new Payment(RewardsMath.toDollars(amountUnits),
+                RewardsMath.cashDollars(amountUnits, redemption.redeemedPoints()),
+                RewardsMath.rewardDollars(redemption.redeemedPoints()),
+                paymentRequest.getEmail(), paymentRequest.getCreditCard(), paymentRequest.getCvc(),
+                correlatorId(paymentRequest));
+    }
+
+    static AccountInfoRequest accountInfoRequest(PaymentRequest paymentRequest) {
+        AccountInfoRequest accountInfoRequest = new AccountInfoRequest();
+        accountInfoRequest.setTopicName("AccountInfoRequest");
+        accountInfoRequest.setEmail(paymentRequest.getEmail());
+        accountInfoRequest.setCorrelatorId(paymentRequest.getCorrelatorId());
+        return accountInfoRequest;
+    }
+
+    static RewardsRequest redemptionRequest(PaymentRequest paymentRequest, CachedAccount account, int remainingPoints) {
+        RewardsRequest rewardsRequest = new RewardsRequest();
+        rewardsRequest.setTopicName("RewardsRequest");
+        rewardsRequest.setCorrelatorId(paymentRequest.getCorrelatorId());
+        rewardsRequest.setEmail(paymentRequest.getEmail());
+        rewardsRequest.setName(account.name());
+        rewardsRequest.setUsername(account.username());
+        rewardsRequest.setRewardPoints(remainingPoints);
+        rewardsRequest.setApplication(Application.REWARD_POINTS_REDEEMED);
+        return rewardsRequest;
+    }
+
+    // AccountInfoRequest to the User Management Service, null when the account can't be found
+    private CachedAccount requestAccountInfo(AccountInfoRequest accountInfoRequest) {
+        long start = metrics.start();
+        CachedAccount account = null;
+        try {
+            DownstreamClient accountService = downstreamClients.forTopic("AccountInfoRequest");
+            account = accountService.call(() -> fetchAccountInfo(accountService, accountInfoRequest));
+            return account;
+        } catch (RuntimeException e) {
+            if (!DownstreamClient.isRejected(e)) {
+                throw e;
+            }
+            // breaker open or too many calls in flight, carry on as if the account is unknown
+            LOG.warn("AccountInfoRequest not sent, User Management Service unavailable: {}", e.getMessage());
+            return null;
+        } finally {
+            metrics.record(Stage.ACCOUNT_INFO, PAYMENT_TOPIC, account != null, start);
+        }
+    }
+
+    private CachedAccount fetchAccountInfo(DownstreamClient accountService, AccountInfoRequest accountInfoRequest) {
+        String accountResponse = accountService.getRestClient().post()
+                .uri(accountService.getUri())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(accountInfoRequest)
+                .retrieve()
+                .body(String.class);
+        if (accountResponse == null) {
+            return null;
+        }
+        try {
+            return CachedAccount.from(jsonCodec.read(accountResponse, AccountInfoResponse.class));
+        } catch (JsonProcessingException e) {
+            LOG.error("Error parsing AccountInfoResponse: {}", e.getMessage());
+            return null;
+        }
     }
 
-    private PaymentResponse createPaymentResponse(PaymentRequest paymentRequest,
+    static PaymentResponse createPaymentResponse(PaymentRequest paymentRequest,
             Status paymentStatus) {
-        LOG.info("Creating a PaymentResponse... with status: " + paymentStatus);
+        LOG.info("Creating a PaymentResponse... with status: {}", paymentStatus);
         PaymentResponse paymentResponse = new PaymentResponse();
         paymentResponse.setTopicName("PaymentResponse");
         paymentResponse.setPaymentAmount(paymentRequest.getPaymentAmount());
@@ -165,16 +339,4 @@ public class BusinessLogic {
         paymentResponse.setStatus(paymentStatus);
         return paymentResponse;
     }
-
-    // Helper method to serialize an object to JSON string
-    private String toJson(Object obj) {
-        try {
-            // Use Jackson ObjectMapper to convert the object to JSON
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.writeValueAsString(obj);  // Convert object to JSON string
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            return "{\"error\":\"Error processing JSON\"}";
-        }
-    }
 }
@@ -0,0 +1,263 @@
+package com.businessLogic;
+
+import static com.businessLogic.BusinessLogic.PAYMENT_TOPIC;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import com.businessLogic.BusinessLogic.Redemption;
+import com.cache.AccountCache;
+import com.cache.CachedAccount;
+import com.cache.IdempotencyCache;
+import com.deadline.Deadline;
+import com.deadline.DeadlineExceededException;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamService;
+import com.downstream.ReactiveDownstreamClients;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.json.JsonCodec;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
+import com.postgres.CorrelatorClaim;
+import com.postgres.ReactivePaymentStore;
+import com.postgres.models.Payment;
+import com.topics.AccountInfoRequest;
+import com.topics.AccountInfoResponse;
+import com.topics.PaymentRequest;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+import com.topics.RewardsRequest;
+import com.topics.RewardsResponse;
+import reactor.core.publisher.Mono;
+
+/*
+ * BusinessLogic.processPaymentRequest for the reactive stack, step for step the same payment
+ * (idempotency, discount, redemption, stored row, response and rewards accrual) but no thread waits
+ * on the user-management-service or the database. The deadline is passed along explicitly since
+ * the work hops between event loop threads.
+ *
+ * The accrual after the response still goes to AsyncLogic on the rewards executor, it never runs
+ * on an event loop thread and stays one implementation for both stacks.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveBusinessLogic {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveBusinessLogic.class);
+
+    private final ReactivePaymentStore paymentStore;
+    private final ReactiveDownstreamClients downstreamClients;
+    private final AsyncLogic asyncLogic;
+    private final JsonCodec jsonCodec;
+    private final AccountCache accountCache;
+    private final IdempotencyCache idempotencyCache;
+    private final RewardsBalanceLock balanceLock;
+    private final PipelineMetrics metrics;
+
+    public ReactiveBusinessLogic(ReactivePaymentStore paymentStore, ReactiveDownstreamClients downstreamClients,
+            AsyncLogic asyncLogic, JsonCodec jsonCodec, AccountCache accountCache, IdempotencyCache idempotencyCache,
+            RewardsBalanceLock balanceLock, PipelineMetrics metrics) {
+        this.paymentStore = paymentStore;
+        this.downstreamClients = downstreamClients;
+        this.asyncLogic = asyncLogic;
+        this.jsonCodec = jsonCodec;
+        this.accountCache = accountCache;
+        this.idempotencyCache = idempotencyCache;
+        this.balanceLock = balanceLock;
+        this.metrics = metrics;
+    }
+
+    public Mono<ResponseEntity<Object>> processPaymentRequest(PaymentRequest paymentRequest, Deadline deadline) {
+        LOG.info("Received a PaymentRequest, posting record into the database...");
+
+        // retries with the same correlatorId are answered with the original PaymentResponse
+        Long correlatorId = BusinessLogic.correlatorId(paymentRequest);
+        if (correlatorId == null) {
+            return processNewPayment(paymentRequest, deadline);
+        }
+        return Mono.fromFuture(() -> idempotencyCache.executeAsync(correlatorId, () ->
+                processClaimedPayment(paymentRequest, correlatorId, deadline).toFuture()));
+    }
+
+    // claims the correlatorId in the database before redeeming, like BusinessLogic
+    private Mono<ResponseEntity<Object>> processClaimedPayment(PaymentRequest paymentRequest, Long correlatorId,
+            Deadline deadline) {
+        if (deadlinePassed(deadline, "before processing")) {
+            return Mono.just(BusinessLogic.deadlineExceeded());
+        }
+
+        return paymentStore.claimCorrelatorId(correlatorId).flatMap(claim -> {
+            if (claim == CorrelatorClaim.STORED) {
+                LOG.info("PaymentRequest {} was already stored", correlatorId);
+                return Mono.just(ResponseEntity.<Object>ok(
+                        BusinessLogic.createPaymentResponse(paymentRequest, Status.SUCCESSFUL)));
+            }
+            if (claim == CorrelatorClaim.IN_PROGRESS) {
+                LOG.info("PaymentRequest {} is being processed by another request", correlatorId);
+                return Mono.just(BusinessLogic.inProgress());
+            }
+            return processNewPayment(paymentRequest, deadline)
+                    .onErrorResume(e -> paymentStore.releaseCorrelatorId(correlatorId).then(Mono.error(e)))
+                    .flatMap(response -> response.getStatusCode().is2xxSuccessful() ? Mono.just(response)
+                            // nothing was stored, a retry has to be able to claim it again
+                            : paymentStore.releaseCorrelatorId(correlatorId).thenReturn(response));
+        });
+    }
+
+    private Mono<ResponseEntity<Object>> processNewPayment(PaymentRequest paymentRequest, Deadline deadline) {
+        if (deadlinePassed(deadline, "before processing")) {
+            return Mono.just(BusinessLogic.deadlineExceeded());
+        }
+
+        long amountUnits = RewardsMath.toUnits(paymentRequest.getPaymentAmount());
+        return redeemRewardPoints(paymentRequest, amountUnits, deadline).flatMap(redemption -> {
+            // stored even when the deadline passed during the redemption, like BusinessLogic
+            Payment payment = BusinessLogic.newPayment(paymentRequest, amountUnits, redemption);
+
+            long start = metrics.start();
+            return paymentStore.insert(payment).map(saved -> {
+                metrics.record(Stage.SAVE, PAYMENT_TOPIC, saved.getId() != null, start);
+                Status paymentStatus = saved.getId() != null ? Status.SUCCESSFUL : Status.FAILED;
+                LOG.info("PaymentRequest processed with status: {} ID: {}", paymentStatus, saved.getId());
+                PaymentResponse paymentResponse = BusinessLogic.createPaymentResponse(paymentRequest, paymentStatus);
+
+                asyncLogic.handleRewards(paymentRequest, redemption.cashUnits());
+
+                return saved.getId() != null ? ResponseEntity.<Object>ok(paymentResponse)
+                        : ResponseEntity.status(500).body("Inernal Error Failed to process PaymentRequest");
+            });
+        }).onErrorResume(DeadlineExceededException.class, e -> {
+            // nothing was sent yet, so nothing to store either
+            LOG.warn("{}, abandoning the PaymentRequest", e.getMessage());
+            return Mono.just(BusinessLogic.deadlineExceeded());
+        });
+    }
+
+    // same outcomes as BusinessLogic.redeemRewardPoints, under the same RewardsBalanceLock
+    private Mono<Redemption> redeemRewardPoints(PaymentRequest paymentRequest, long amountUnits, Deadline deadline) {
+        AccountInfoRequest accountInfoRequest = BusinessLogic.accountInfoRequest(paymentRequest);
+        // the balance is read once it's this payment's turn, not when the Mono is assembled
+        Mono<Redemption> redemption = Mono.defer(() -> account(paymentRequest.getEmail(), accountInfoRequest, deadline))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(found -> {
+                    if (found.isEmpty()) {
+                        LOG.warn("AccountInfoResponse is null, user may not exist. Processing payment without reward points.");
+                        return Mono.just(new Redemption(amountUnits, 0));
+                    }
+                    return redeem(paymentRequest, found.get(), amountUnits, deadline);
+                });
+        return balanceLock.executeAsync(paymentRequest.getEmail(), redemption);
+    }
+
+    private Mono<Redemption> redeem(PaymentRequest paymentRequest, CachedAccount account, long amountUnits,
+            Deadline deadline) {
+        long rewardPoints = account.rewardPoints();
+        LOG.info("{} had {} reward points. Automatically applying discount at rate of [RewardPoints/200].",
+                account.username(), rewardPoints);
+
+        long redeemedPoints = RewardsMath.redeemedPoints(amountUnits, rewardPoints);
+        long cashUnits = RewardsMath.cashUnits(amountUnits, redeemedPoints);
+        if (rewardPoints > 0 && LOG.isInfoEnabled()) {
+            LOG.info("Applied discount of {} points equating to {}, new payment amount is: {}",
+                    redeemedPoints, RewardsMath.format(redeemedPoints), RewardsMath.format(cashUnits));
+        }
+
+        int remainingPoints = (int) (rewardPoints - redeemedPoints);
+        RewardsRequest rewardsRequest = BusinessLogic.redemptionRequest(paymentRequest, account, remainingPoints);
+        String email = paymentRequest.getEmail();
+
+        return Mono.defer(() -> {
+            long start = metrics.start();
+            return downstreamClients.post(DownstreamService.USER_MANAGEMENT, write(rewardsRequest), deadline)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty RewardsResponse")))
+                    .map(body -> read(body, RewardsResponse.class))
+                    .doOnSuccess(response -> metrics.record(Stage.REWARDS_REDEEM, PAYMENT_TOPIC,
+                            response.getApplication() == RewardsResponse.Application.SUCCESS, start))
+                    .doOnError(e -> metrics.record(Stage.REWARDS_REDEEM, PAYMENT_TOPIC, false, start));
+        })
+                .map(response -> {
+                    LOG.info("Sent a RewardsRequest to deplete used reward points. Status: {}", response.getApplication());
+                    if (response.getApplication() == RewardsResponse.Application.SUCCESS) {
+                        accountCache.updateRewardPoints(email, remainingPoints);
+                    } else {
+                        accountCache.invalidate(email);
+                    }
+                    return new Redemption(cashUnits, redeemedPoints);
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof DeadlineExceededException) {
+                        return Mono.error(e);
+                    }
+                    if (DownstreamClient.isRejected(e)) {
+                        // the points were never redeemed, so no discount either
+                        LOG.warn("RewardsRequest not sent, User Management Service unavailable. Processing payment without reward points.");
+                        return Mono.just(new Redemption(amountUnits, 0));
+                    }
+                    // the redemption may or may not have been applied, never keep the old balance
+                    accountCache.invalidate(email);
+                    LOG.error("Error parsing AccountInfoResponse: {}", e.getMessage());
+                    return Mono.just(new Redemption(cashUnits, redeemedPoints));
+                });
+    }
+
+    // cached account or an AccountInfoRequest, empty when the account can't be found
+    private Mono<CachedAccount> account(String email, AccountInfoRequest accountInfoRequest, Deadline deadline) {
+        CachedAccount cached = accountCache.getIfPresent(email);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return requestAccountInfo(accountInfoRequest, deadline)
+                .doOnNext(account -> accountCache.put(email, account));
+    }
+
+    private Mono<CachedAccount> requestAccountInfo(AccountInfoRequest accountInfoRequest, Deadline deadline) {
+        return Mono.defer(() -> {
+            long start = metrics.start();
+            return downstreamClients.post(DownstreamService.USER_MANAGEMENT, write(accountInfoRequest), deadline)
+                    .flatMap(body -> Mono.justOrEmpty(parseAccount(body)))
+                    .onErrorResume(DownstreamClient::isRejected, e -> {
+                        // breaker open or too many calls in flight, carry on as if the account is unknown
+                        LOG.warn("AccountInfoRequest not sent, User Management Service unavailable: {}", e.getMessage());
+                        return Mono.empty();
+                    })
+                    .doOnSuccess(account -> metrics.record(Stage.ACCOUNT_INFO, PAYMENT_TOPIC, account != null, start))
+                    .doOnError(e -> metrics.record(Stage.ACCOUNT_INFO, PAYMENT_TOPIC, false, start));
+        });
+    }
+
+    private CachedAccount parseAccount(String accountResponse) {
+        try {
+            return CachedAccount.from(jsonCodec.read(accountResponse, AccountInfoResponse.class));
+        } catch (JsonProcessingException e) {
+            LOG.error("Error parsing AccountInfoResponse: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String write(Object topic) {
+        try {
+            return jsonCodec.writeAsString(topic);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + topic.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return jsonCodec.read(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to parse " + type.getSimpleName(), e);
+        }
+    }
+
+    private static boolean deadlinePassed(Deadline deadline, String stage) {
+        if (deadline != null && deadline.isExpired()) {
+            LOG.warn("Request deadline passed {}, abandoning the PaymentRequest", stage);
+            return true;
+        }
+        return false;
+    }
+}
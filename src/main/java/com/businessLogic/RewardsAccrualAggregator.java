@@ -0,0 +1,352 @@
+package com.businessLogic;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import com.cache.AccountCache;
+import com.cache.CachedAccount;
+import com.config.ExecutionConfig;
+import com.deadline.Deadline;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamClients;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.json.JsonCodec;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
+import com.topics.AccountInfoRequest;
+import com.topics.AccountInfoResponse;
+import com.topics.RewardsRequest;
+import com.topics.RewardsRequest.Application;
+import com.topics.RewardsResponse;
+
+/*
+ * Write-behind for reward point accrual. Instead of an AccountInfoRequest and a RewardsRequest per
+ * payment, the points earned are added up per email for rewards.accrual.window-ms and each user
+ * gets one RewardsRequest (REWARD_POINTS_ADDED) with the combined points per flush. Because the
+ * balance is read once per flush, back to back payments of one user no longer race each other's
+ * read-modify-write.
+ *
+ * At most rewards.accrual.max-pending-users emails are held, a payment for a new email beyond that
+ * is sent right away on the calling thread, as it is with write-behind disabled. Accruals the
+ * bulkhead or circuit breaker turned away are kept for the next flush, and whatever is pending
+ * when the service stops is sent before the downstream clients close.
+ *
+ * Only one send per email is in flight at a time, whichever path it comes from, and never next to
+ * a redemption of the same user (RewardsBalanceLock). A send for an email that is being flushed or
+ * redeemed waits for that one and then reads the balance it wrote.
+ */
+@Component
+public class RewardsAccrualAggregator implements SmartLifecycle {
+    private static final Logger LOG = LoggerFactory.getLogger(RewardsAccrualAggregator.class);
+
+    private final DownstreamClients downstreamClients;
+    private final JsonCodec jsonCodec;
+    private final AccountCache accountCache;
+    private final PipelineMetrics metrics;
+    private final Executor rewardsExecutor;
+
+    private final boolean writeBehind;
+    private final long windowMs;
+    private final int maxPendingUsers;
+    private final Duration sendBudget;
+
+    private final ConcurrentHashMap<String, PendingAccrual> pending = new ConcurrentHashMap<>();
+    private final RewardsBalanceLock balanceLock;
+
+    private final AtomicLong accruals = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flushThread;
+
+    public RewardsAccrualAggregator(DownstreamClients downstreamClients, JsonCodec jsonCodec,
+            AccountCache accountCache, PipelineMetrics metrics, RewardsBalanceLock balanceLock,
+            @Qualifier(ExecutionConfig.REWARDS_EXECUTOR) Executor rewardsExecutor,
+            @Value("${rewards.accrual.write-behind.enabled:true}") boolean writeBehind,
+            @Value("${rewards.accrual.window-ms:2000}") long windowMs,
+            @Value("${rewards.accrual.max-pending-users:10000}") int maxPendingUsers,
+            @Value("${rewards.deadline-ms:10000}") long rewardsDeadlineMs) {
+        this.downstreamClients = downstreamClients;
+        this.jsonCodec = jsonCodec;
+        this.accountCache = accountCache;
+        this.metrics = metrics;
+        this.balanceLock = balanceLock;
+        this.rewardsExecutor = rewardsExecutor;
+        this.writeBehind = writeBehind;
+        this.windowMs = windowMs;
+        this.maxPendingUsers = maxPendingUsers;
+        this.sendBudget = Duration.ofMillis(rewardsDeadlineMs);
+    }
+
+    /*
+     * Adds the points a payment earned for the logged in user. With write-behind they are sent with
+     * the next flush, otherwise (or when the buffer is full) right away, exceptions included.
+     */
+    public void accrue(String email, String user, Integer correlatorId, long points) {
+        accruals.incrementAndGet();
+        PendingAccrual accrual = new PendingAccrual(user, correlatorId, points, 1);
+        if (!writeBehind || !running) {
+            sendExclusive(email, accrual);
+            return;
+        }
+        if (pending.size() >= maxPendingUsers && !pending.containsKey(email)) {
+            overflows.incrementAndGet();
+            sendExclusive(email, accrual);
+            return;
+        }
+        if (pending.merge(email, accrual, PendingAccrual::plus) != accrual) {
+            merged.incrementAndGet();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(accruals.get(), merged.get(), requests.get(), overflows.get(), flushes.get(),
+                flushNanos.get(), pending.size());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (writeBehind) {
+            flushThread = new Thread(this::run, "rewards-accrual");
+            flushThread.setDaemon(true);
+            flushThread.start();
+        }
+        LOG.info("RewardsAccrualAggregator started, write-behind {} every {} ms for up to {} users",
+                writeBehind ? "on" : "off", windowMs, maxPendingUsers);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flushThread != null) {
+            flushThread.interrupt();
+            try {
+                flushThread.join(sendBudget.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // anything still pending is sent from here, the rewards executor may already be shut down
+        if (!pending.isEmpty()) {
+            flush(Runnable::run, false);
+        }
+        LOG.info("RewardsAccrualAggregator stopped: {}", getStats());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(windowMs);
+            } catch (InterruptedException e) {
+                // stop() sends what is left
+                return;
+            }
+            if (!pending.isEmpty()) {
+                flush(rewardsExecutor, true);
+            }
+        }
+    }
+
+    // sends one RewardsRequest per pending email and waits for all of them
+    private void flush(Executor executor, boolean retryRejected) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> sends = new ArrayList<>(pending.size());
+        for (String email : pending.keySet()) {
+            PendingAccrual accrual = pending.remove(email);
+            if (accrual == null) {
+                continue;
+            }
+            Runnable task = () -> {
+                try (Deadline.Scope ignored = Deadline.after(sendBudget).attach()) {
+                    sendExclusive(email, accrual);
+                } catch (Exception e) {
+                    if (DownstreamClient.isNotSent(e) && retryRejected) {
+                        // never reached the service, try again with the next flush
+                        pending.merge(email, accrual, PendingAccrual::plus);
+                        return;
+                    }
+                    if (!DownstreamClient.isNotSent(e)) {
+                        // the accrual may or may not have been applied, never keep the old balance
+                        accountCache.invalidate(email);
+                    }
+                    LOG.error("Failed to add {} reward points for {}: {}", accrual.points(), email, e.getMessage());
+                }
+            };
+            CompletableFuture<Void> send = new CompletableFuture<>();
+            sends.add(send);
+            Runnable completing = () -> {
+                try {
+                    task.run();
+                } finally {
+                    send.complete(null);
+                }
+            };
+            try {
+                executor.execute(completing);
+            } catch (RejectedExecutionException e) {
+                completing.run();
+            }
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendBudget.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            LOG.warn("Reward accrual flush of {} users did not finish in time: {}", sends.size(), e.getMessage());
+        } finally {
+            flushes.incrementAndGet();
+            flushNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    // send() for one email at a time, two read-modify-writes of one balance never overlap
+    private void sendExclusive(String email, PendingAccrual accrual) {
+        balanceLock.execute(email, () -> {
+            send(email, accrual);
+            return null;
+        });
+    }
+
+    /*
+     * Reads the balance (usually from the AccountCache) and sends the new balance with the points
+     * added, the read-modify-write AsyncLogic used to do for every payment.
+     */
+    private void send(String email, PendingAccrual accrual) {
+        String user = accrual.user();
+        AccountInfoRequest accountInfoRequest = new AccountInfoRequest();
+        accountInfoRequest.setTopicName("AccountInfoRequest");
+        accountInfoRequest.setEmail(email);
+        accountInfoRequest.setUsername(user);
+        accountInfoRequest.setCorrelatorId(accrual.correlatorId());
+
+        CachedAccount account = accountCache.get(email, key -> requestAccountInfo(accountInfoRequest));
+        if (account != null && account.username() != null && !account.username().equals(user)) {
+            // cached account isn't the logged in user, ask the User Management Service directly
+            account = requestAccountInfo(accountInfoRequest);
+        }
+        LOG.info("Sent an AccountInfoRequest to the User Management Service...");
+
+        if (account == null) {
+            LOG.warn("AccountInfoResponse is null, cannot proceed with rewards processing.");
+            return;
+        }
+
+        int rewardPoints = account.rewardPoints();
+        int newPoints = rewardPoints + (int) accrual.points();
+        LOG.info("{} initially had {} reward points. The user now has {} points ({} payments).", user,
+                rewardPoints, newPoints, accrual.payments());
+
+        RewardsRequest rewardsRequest = new RewardsRequest();
+        rewardsRequest.setTopicName("RewardsRequest");
+        rewardsRequest.setCorrelatorId(accrual.correlatorId());
+        rewardsRequest.setEmail(email);
+        rewardsRequest.setName(account.name());
+        rewardsRequest.setUsername(user);
+        rewardsRequest.setRewardPoints(newPoints);
+        rewardsRequest.setApplication(Application.REWARD_POINTS_ADDED);
+
+        DownstreamClient rewardsService = downstreamClients.forTopic("RewardsRequest");
+        long start = metrics.start();
+        RewardsResponse rewardStatus = null;
+        try {
+            String rewardsResponse = rewardsService.call(() -> rewardsService.getRestClient()
+                .post()
+                .uri(rewardsService.getUri())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rewardsRequest)
+                .retrieve()
+                .body(String.class));
+            requests.incrementAndGet();
+            rewardStatus = jsonCodec.read(rewardsResponse, RewardsResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error parsing RewardsResponse: " + e.getMessage(), e);
+        } finally {
+            metrics.record(Stage.REWARDS_ACCRUE, BusinessLogic.PAYMENT_TOPIC,
+                    rewardStatus != null && rewardStatus.getApplication() == RewardsResponse.Application.SUCCESS, start);
+        }
+
+        if (rewardStatus == null) {
+            accountCache.invalidate(email);
+            LOG.warn("RewardsResponse is null, rewards processing may have failed.");
+            return;
+        }
+        if (rewardStatus.getApplication() == RewardsResponse.Application.SUCCESS) {
+            accountCache.updateRewardPoints(email, newPoints);
+        } else {
+            accountCache.invalidate(email);
+        }
+        LOG.info("Sent a RewardsRequest to the User Management Service... Received response: {}", rewardStatus.getApplication());
+    }
+
+    // AccountInfoRequest to the User Management Service, null when the account can't be found
+    private CachedAccount requestAccountInfo(AccountInfoRequest accountInfoRequest) {
+        long start = metrics.start();
+        CachedAccount account = null;
+        try {
+            DownstreamClient accountService = downstreamClients.forTopic("AccountInfoRequest");
+            account = accountService.call(() -> fetchAccountInfo(accountService, accountInfoRequest));
+            return account;
+        } catch (RuntimeException e) {
+            if (!DownstreamClient.isRejected(e)) {
+                throw e;
+            }
+            // breaker open or too many calls in flight, carry on as if the account is unknown
+            LOG.warn("AccountInfoRequest not sent, User Management Service unavailable: {}", e.getMessage());
+            return null;
+        } finally {
+            metrics.record(Stage.ACCOUNT_INFO, BusinessLogic.PAYMENT_TOPIC, account != null, start);
+        }
+    }
+
+    private CachedAccount fetchAccountInfo(DownstreamClient accountService, AccountInfoRequest accountInfoRequest) {
+        String accountResponse = accountService.getRestClient().post()
+            .uri(accountService.getUri())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(accountInfoRequest)
+            .retrieve()
+            .body(String.class);
+        if (accountResponse == null) {
+            return null;
+        }
+        try {
+            return CachedAccount.from(jsonCodec.read(accountResponse, AccountInfoResponse.class));
+        } catch (JsonProcessingException e) {
+            LOG.error("Error parsing AccountInfoResponse: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // points waiting to be sent for one email, the latest payment's user and correlatorId are used
+    private record PendingAccrual(String user, Integer correlatorId, long points, int payments) {
+        PendingAccrual plus(PendingAccrual later) {
+            return new PendingAccrual(later.user(), later.correlatorId(), points + later.points(),
+                    payments + later.payments());
+        }
+    }
+
+    // merged: accruals folded into one already pending, each saves a RewardsRequest (and account lookup)
+    public record Stats(long accruals, long merged, long requests, long overflows, long flushes, long flushNanos,
+            int pending) {}
+}
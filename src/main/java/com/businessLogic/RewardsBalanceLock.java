@@ -0,0 +1,51 @@
+package com.businessLogic;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/*
+ * One read-modify-write of a user's reward balance at a time. Accruals (RewardsAccrualAggregator)
+ * and redemptions (BusinessLogic, ReactiveBusinessLogic) both read the balance and send back an
+ * absolute one, run through here a redemption can't overwrite the points an accrual just added or
+ * the other way round.
+ *
+ * Work for one email runs in arrival order, each waits for the one before it. Blocking callers wait
+ * on their thread, reactive callers subscribe once the previous work finished. Only this instance
+ * is covered, the User Management Service has no compare-and-set for the balance.
+ */
+@Component
+public class RewardsBalanceLock {
+    // the last work queued per email, completed when it finished
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public <T> T execute(String email, Supplier<T> work) {
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> previous = tails.put(email, mine);
+        try {
+            if (previous != null) {
+                previous.join();
+            }
+            return work.get();
+        } finally {
+            release(email, mine);
+        }
+    }
+
+    public <T> Mono<T> executeAsync(String email, Mono<T> work) {
+        return Mono.defer(() -> {
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> previous = tails.put(email, mine);
+            // a cancelled caller must not cancel the work it waits for
+            Mono<Void> turn = previous == null ? Mono.empty() : Mono.fromFuture(previous, true);
+            return turn.then(work).doFinally(signal -> release(email, mine));
+        });
+    }
+
+    private void release(String email, CompletableFuture<Void> mine) {
+        tails.remove(email, mine);
+        mine.complete(null);
+    }
+}
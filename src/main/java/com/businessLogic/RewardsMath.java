@@ -0,0 +1,65 @@
+package com.businessLogic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+ * Fixed-point money and rewards math for payments, everything in primitive longs.
+ *
+ * Amounts are carried in reward units, one unit is what one reward point is worth: $0.005, so a
+ * cent is 2 units and a dollar 200. That keeps the redemption rate of [RewardPoints/200] exact.
+ *   redemption: min(rewardPoints, amount) points are used, the rest of the amount is paid in cash
+ *   accrual:    one point per full $0.10 paid in cash (20 units), fractions are truncated
+ *
+ * toDollars is the single conversion to BigDecimal for persistence, it rounds to the cent
+ * HALF_UP exactly like the DECIMAL(5,2) columns would. An odd number of redeemed points is half a
+ * cent, so a stored payment rounds only its reward part (rewardDollars) and the cash part is the
+ * rest of the amount (cashDollars): cash + reward always equals the payment amount.
+ */
+public final class RewardsMath {
+    public static final long UNITS_PER_CENT = 2;
+    public static final long UNITS_PER_DOLLAR = 200;
+    public static final long UNITS_PER_ACCRUED_POINT = 20;
+
+    private RewardsMath() {}
+
+    // topic amounts have at most two decimals (schema), so rounding only removes binary noise
+    public static long toUnits(double dollars) {
+        return Math.round(dollars * 100.0) * UNITS_PER_CENT;
+    }
+
+    // points used for the payment, never more than the user has nor more than the amount is worth
+    public static long redeemedPoints(long amountUnits, long rewardPoints) {
+        return Math.max(0, Math.min(rewardPoints, amountUnits));
+    }
+
+    // what is left to pay in cash after the redeemed points
+    public static long cashUnits(long amountUnits, long redeemedPoints) {
+        return amountUnits - redeemedPoints;
+    }
+
+    // points earned on the cash paid
+    public static long accruedPoints(long cashUnits) {
+        return cashUnits <= 0 ? 0 : cashUnits / UNITS_PER_ACCRUED_POINT;
+    }
+
+    public static BigDecimal toDollars(long units) {
+        // one unit is 5/1000 of a dollar
+        return BigDecimal.valueOf(units * 5, 3).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // reward cash applied to a payment, the only part of a payment that is rounded
+    public static BigDecimal rewardDollars(long redeemedPoints) {
+        return toDollars(redeemedPoints);
+    }
+
+    // cash paid, the amount (always whole cents) minus the rounded reward part
+    public static BigDecimal cashDollars(long amountUnits, long redeemedPoints) {
+        return toDollars(amountUnits).subtract(rewardDollars(redeemedPoints));
+    }
+
+    // $d.cc for log lines, call only when the line is actually logged
+    public static String format(long units) {
+        return "$" + toDollars(units).toPlainString();
+    }
+}
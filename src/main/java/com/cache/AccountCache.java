@@ -0,0 +1,73 @@
+package com.cache;
+
+import java.time.Duration;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/*
+ * Short lived cache of user-management-service account info keyed by email. A payment looks the
+ * same account up twice (discount in BusinessLogic, accrual in AsyncLogic), the second lookup is
+ * served from here. Every RewardsRequest this service sends writes the new balance through to the
+ * cache, or drops the entry when the outcome is unknown, so our own writes never leave it stale.
+ */
+@Component
+public class AccountCache {
+    private static final Logger LOG = LoggerFactory.getLogger(AccountCache.class);
+
+    private final Cache<String, CachedAccount> cache;
+
+    public AccountCache(@Value("${account.cache.max-size:10000}") long maxSize,
+            @Value("${account.cache.ttl-ms:30000}") long ttlMs) {
+        // size bounded caches use W-TinyLFU eviction
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        LOG.info("AccountCache initialized with max size {} and TTL {} ms", maxSize, ttlMs);
+    }
+
+    /*
+     * Returns the cached account or loads it, concurrent loads for the same email share one call.
+     * A null from the loader is returned but not cached.
+     */
+    public CachedAccount get(String email, Function<String, CachedAccount> loader) {
+        return cache.get(email, loader);
+    }
+
+    // for callers that load the account without blocking (reactive stack), null when not cached
+    public CachedAccount getIfPresent(String email) {
+        return cache.getIfPresent(email);
+    }
+
+    public void put(String email, CachedAccount account) {
+        cache.put(email, account);
+    }
+
+    // write-through after a successful RewardsRequest, only refreshes an entry that is cached
+    public void updateRewardPoints(String email, int rewardPoints) {
+        cache.asMap().computeIfPresent(email, (key, account) -> account.withRewardPoints(rewardPoints));
+    }
+
+    public void invalidate(String email) {
+        cache.invalidate(email);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public Cache<String, CachedAccount> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,20 @@
+package com.cache;
+
+import com.topics.AccountInfoResponse;
+
+/*
+ * The parts of an AccountInfoResponse the payment flow needs, immutable so it can be shared
+ * between requests through the AccountCache
+ */
+public record CachedAccount(String name, String username, String email, int rewardPoints) {
+
+    public static CachedAccount from(AccountInfoResponse response) {
+        Integer rewardPoints = response.getRewardPoints();
+        return new CachedAccount(response.getName(), response.getUsername(), response.getEmail(),
+                rewardPoints == null ? 0 : rewardPoints);
+    }
+
+    public CachedAccount withRewardPoints(int newRewardPoints) {
+        return new CachedAccount(name, username, email, newRewardPoints);
+    }
+}
@@ -0,0 +1,145 @@
+package com.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+
+/*
+ * Makes PaymentRequests idempotent per correlatorId. A retry of a payment that already succeeded
+ * gets the original PaymentResponse from memory, and duplicates arriving while the first one is
+ * still being processed wait for it and share its result instead of running again.
+ */
+@Component
+public class IdempotencyCache {
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyCache.class);
+
+    private final Cache<Long, PaymentResponse> recentResponses;
+    private final ConcurrentHashMap<Long, CompletableFuture<ResponseEntity<Object>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public IdempotencyCache(@Value("${idempotency.cache.max-size:100000}") long maxSize,
+            @Value("${idempotency.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.recentResponses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /*
+     * Runs the payment once per correlatorId. Successful PaymentResponses are remembered so the
+     * next retry is answered without running the payment, failures are not so a retry can succeed.
+     */
+    public ResponseEntity<Object> execute(Long correlatorId, Supplier<ResponseEntity<Object>> payment) {
+        if (correlatorId == null) {
+            return payment.get();
+        }
+
+        PaymentResponse recent = recentResponses.getIfPresent(correlatorId);
+        if (recent != null) {
+            replayed.incrementAndGet();
+            LOG.info("Duplicate PaymentRequest {}, returning the original PaymentResponse", correlatorId);
+            return ResponseEntity.ok(recent);
+        }
+
+        CompletableFuture<ResponseEntity<Object>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> running = inFlight.putIfAbsent(correlatorId, mine);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            LOG.info("PaymentRequest {} is already being processed, waiting for it", correlatorId);
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            // the previous owner may have finished between the cache check and putIfAbsent
+            recent = recentResponses.getIfPresent(correlatorId);
+            ResponseEntity<Object> response = recent != null ? ResponseEntity.ok(recent) : payment.get();
+            remember(correlatorId, response);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(correlatorId, mine);
+        }
+    }
+
+    /*
+     * execute for the reactive stack, same cache and in-flight payments but nothing blocks: a
+     * duplicate gets a future of the running payment instead of waiting for it. Callers get copies
+     * so cancelling one never cancels the shared payment.
+     */
+    public CompletableFuture<ResponseEntity<Object>> executeAsync(Long correlatorId,
+            Supplier<CompletableFuture<ResponseEntity<Object>>> payment) {
+        if (correlatorId == null) {
+            return payment.get();
+        }
+
+        PaymentResponse recent = recentResponses.getIfPresent(correlatorId);
+        if (recent != null) {
+            replayed.incrementAndGet();
+            LOG.info("Duplicate PaymentRequest {}, returning the original PaymentResponse", correlatorId);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(recent));
+        }
+
+        CompletableFuture<ResponseEntity<Object>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> running = inFlight.putIfAbsent(correlatorId, mine);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            LOG.info("PaymentRequest {} is already being processed, waiting for it", correlatorId);
+            return running.copy();
+        }
+
+        // the previous owner may have finished between the cache check and putIfAbsent
+        recent = recentResponses.getIfPresent(correlatorId);
+        CompletableFuture<ResponseEntity<Object>> result;
+        try {
+            result = recent != null ? CompletableFuture.completedFuture(ResponseEntity.ok(recent)) : payment.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((response, error) -> {
+            if (error == null) {
+                remember(correlatorId, response);
+                mine.complete(response);
+            } else {
+                mine.completeExceptionally(error);
+            }
+            inFlight.remove(correlatorId, mine);
+        });
+        return mine.copy();
+    }
+
+    public void remember(Long correlatorId, ResponseEntity<Object> response) {
+        if (response.getBody() instanceof PaymentResponse paymentResponse
+                && paymentResponse.getStatus() == Status.SUCCESSFUL) {
+            recentResponses.put(correlatorId, paymentResponse);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(replayed.get(), collapsed.get(), inFlight.size(), recentResponses.estimatedSize());
+    }
+
+    public record Stats(long replayed, long collapsed, int inFlight, long cached) {}
+}
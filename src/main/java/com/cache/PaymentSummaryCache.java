@@ -0,0 +1,46 @@
+package com.cache;
+
+import java.time.Duration;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.postgres.models.PaymentSummary;
+
+/*
+ * Recently read customer summaries keyed by email, so support tools refreshing the same customer
+ * don't go to the database each time. Payments stored by this instance drop the customer's entry,
+ * payments stored by other instances show up after at most ttl-ms.
+ */
+@Component
+public class PaymentSummaryCache {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentSummaryCache.class);
+
+    private final Cache<String, PaymentSummary> cache;
+
+    public PaymentSummaryCache(@Value("${payment.summary.cache.max-size:10000}") long maxSize,
+            @Value("${payment.summary.cache.ttl-ms:5000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        LOG.info("PaymentSummaryCache initialized with max size {} and TTL {} ms", maxSize, ttlMs);
+    }
+
+    // cached summary or the loaded one, concurrent loads for the same email share one query
+    public PaymentSummary get(String email, Function<String, PaymentSummary> loader) {
+        return cache.get(email, loader);
+    }
+
+    public void invalidate(String email) {
+        cache.invalidate(email);
+    }
+
+    public Cache<String, PaymentSummary> getCache() {
+        return cache;
+    }
+}
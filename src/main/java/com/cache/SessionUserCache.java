@@ -0,0 +1,109 @@
+package com.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.deadline.Deadline;
+import com.deadline.DeadlineExceededException;
+
+/*
+ * Single-flight, short lived cache of the logged in user from the session-manager. The lookup
+ * takes no arguments, so every payment in a busy moment asks the same question: concurrent lookups
+ * share the one request in flight and the answer, including "NO-USER", is reused for
+ * session.cache.ttl-ms. Failed or empty lookups are shared with the callers waiting on them but
+ * never cached. A ttl of 0 keeps the coalescing and turns the caching off.
+ */
+@Component
+public class SessionUserCache {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionUserCache.class);
+
+    private final long ttlNanos;
+    private final AtomicReference<CompletableFuture<String>> inFlight = new AtomicReference<>();
+    private volatile CachedUser cached;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public SessionUserCache(@Value("${session.cache.ttl-ms:1000}") long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        LOG.info("SessionUserCache initialized with TTL {} ms", ttlMs);
+    }
+
+    /*
+     * The current user from the cache, from the lookup already in flight, or from running lookup.
+     * A caller waiting on another caller's lookup gives up with DeadlineExceededException once its
+     * own deadline has passed.
+     */
+    public String get(Supplier<String> lookup) {
+        String user = cachedUser();
+        if (user != null) {
+            hits.incrementAndGet();
+            return user;
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            // the previous lookup may have finished between the cache check and taking the slot
+            user = cachedUser();
+            if (user != null) {
+                hits.incrementAndGet();
+            } else {
+                calls.incrementAndGet();
+                user = lookup.get();
+                if (user != null && ttlNanos > 0) {
+                    cached = new CachedUser(user, System.nanoTime() + ttlNanos);
+                }
+            }
+            mine.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.compareAndSet(mine, null);
+        }
+    }
+
+    private String cachedUser() {
+        CachedUser current = cached;
+        return current != null && System.nanoTime() - current.expiresAtNanos() < 0 ? current.user() : null;
+    }
+
+    private static String await(CompletableFuture<String> running) {
+        Deadline deadline = Deadline.current();
+        try {
+            return deadline == null ? running.get() : running.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("the session-manager lookup finished");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the session-manager lookup", e);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(calls.get(), coalesced.get(), hits.get());
+    }
+
+    // calls: lookups sent to the session-manager, coalesced: joined one in flight, hits: served from the cache
+    public record Stats(long calls, long coalesced, long hits) {}
+
+    private record CachedUser(String user, long expiresAtNanos) {}
+}
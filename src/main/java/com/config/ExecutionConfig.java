@@ -0,0 +1,105 @@
+package com.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/*
+ * Execution mode of the service. With spring.threads.virtual.enabled=true Tomcat handles requests
+ * on virtual threads and the rewards executor used by AsyncLogic spawns a virtual thread per task,
+ * otherwise both run on bounded platform thread pools.
+ */
+@Configuration
+@EnableAsync
+public class ExecutionConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    public static final String REWARDS_EXECUTOR = "rewardsExecutor";
+    public static final String BULK_EXECUTOR = "bulkExecutor";
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${async.executor.core-pool-size:8}")
+    private int corePoolSize;
+    @Value("${async.executor.max-pool-size:32}")
+    private int maxPoolSize;
+    @Value("${async.executor.queue-capacity:500}")
+    private int queueCapacity;
+    @Value("${async.executor.max-concurrency:256}")
+    private int maxConcurrency;
+    @Value("${bulk.max-parallelism:16}")
+    private int bulkParallelism;
+
+    @Bean
+    public ExecutorMetrics rewardsExecutorMetrics() {
+        return new ExecutorMetrics(REWARDS_EXECUTOR);
+    }
+
+    @Bean(name = REWARDS_EXECUTOR)
+    public Executor rewardsExecutor(ExecutorMetrics rewardsExecutorMetrics) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("rewards-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrency);
+            executor.setTaskDecorator(rewardsExecutorMetrics);
+            LOG.info("Rewards executor running on virtual threads, max concurrency {}", maxConcurrency);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("rewards-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(rewardsExecutorMetrics);
+        // never drop rewards work, run it on the caller when the pool is saturated
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rewardsExecutorMetrics.recordRejection();
+            if (!pool.isShutdown()) {
+                task.run();
+            }
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        LOG.info("Rewards executor running on platform threads, pool {}-{} queue {}",
+                corePoolSize, maxPoolSize, queueCapacity);
+        return executor;
+    }
+
+    // BulkLogic bounds the payments in flight itself, this only supplies the threads
+    @Bean(name = BULK_EXECUTOR)
+    public Executor bulkExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("bulk-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("bulk-");
+        executor.setCorePoolSize(bulkParallelism);
+        executor.setMaxPoolSize(bulkParallelism);
+        executor.setQueueCapacity(bulkParallelism);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${virtual.threads.pinning.threshold-ms:20}") long thresholdMs) {
+        VirtualThreadPinningMonitor monitor =
+                new VirtualThreadPinningMonitor(Duration.ofMillis(thresholdMs));
+        monitor.start();
+        return monitor;
+    }
+}
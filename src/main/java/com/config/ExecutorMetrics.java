@@ -0,0 +1,57 @@
+package com.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.core.task.TaskDecorator;
+
+/*
+ * Counts what goes through an executor: submitted, running, completed, failed and rejected tasks
+ * along with the time tasks spent queued before a thread picked them up.
+ */
+public class ExecutorMetrics implements TaskDecorator {
+    private final String name;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+
+    public ExecutorMetrics(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        submitted.incrementAndGet();
+        long queuedAt = System.nanoTime();
+        return () -> {
+            queueWaitNanos.addAndGet(System.nanoTime() - queuedAt);
+            active.incrementAndGet();
+            try {
+                task.run();
+                completed.incrementAndGet();
+            } catch (RuntimeException | Error e) {
+                failed.incrementAndGet();
+                throw e;
+            } finally {
+                active.decrementAndGet();
+            }
+        };
+    }
+
+    public void recordRejection() {
+        rejected.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(submitted.get(), active.get(), completed.get(), failed.get(),
+                rejected.get(), queueWaitNanos.get());
+    }
+
+    public record Snapshot(long submitted, long active, long completed, long failed, long rejected,
+            long queueWaitNanos) {}
+}
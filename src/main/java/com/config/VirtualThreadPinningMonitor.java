@@ -0,0 +1,47 @@
+package com.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/*
+ * Streams the JFR jdk.VirtualThreadPinned event and logs every time a virtual thread blocks
+ * while pinned to its carrier (synchronized blocks, native frames) for longer than the threshold.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private final RecordingStream recordingStream = new RecordingStream();
+    private final AtomicLong pinnedEvents = new AtomicLong();
+
+    public VirtualThreadPinningMonitor(Duration threshold) {
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+    }
+
+    public void start() {
+        recordingStream.startAsync();
+        LOG.info("Virtual thread pinning monitor started");
+    }
+
+    public long getPinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        String frame = event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()
+                ? "unknown"
+                : event.getStackTrace().getFrames().get(0).getMethod().getType().getName() + "."
+                        + event.getStackTrace().getFrames().get(0).getMethod().getName();
+        LOG.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+    }
+
+    @Override
+    public void close() {
+        recordingStream.close();
+    }
+}
@@ -1,18 +1,23 @@
 package com.controller;
 
 import java.io.InputStream;
-import java.net.URL;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
-import com.SchemaService;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.businessLogic.BulkLogic;
 import com.businessLogic.BusinessLogic;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.json.JsonCodec;
+import com.logging.PayloadLogger;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
 import com.schema.SchemaValidator;
 
 // topic list
@@ -23,14 +28,25 @@ import com.topics.PaymentRequest;
  * handle the topics
  */
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class MainController {
     private SchemaValidator schemaValidator;
     private BusinessLogic businessLogic;
+    private BulkLogic bulkLogic;
+    private JsonCodec jsonCodec;
+    private PipelineMetrics metrics;
+    private PayloadLogger payloadLogger;
     private static final Logger LOG = LoggerFactory.getLogger(BusinessLogic.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
-    public MainController(SchemaValidator schemaValidator, BusinessLogic businessLogic) {
+    public MainController(SchemaValidator schemaValidator, BusinessLogic businessLogic, BulkLogic bulkLogic,
+            JsonCodec jsonCodec, PipelineMetrics metrics, PayloadLogger payloadLogger) {
         this.schemaValidator = schemaValidator;
         this.businessLogic = businessLogic;
+        this.bulkLogic = bulkLogic;
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+        this.payloadLogger = payloadLogger;
     }
 
     @GetMapping("/api/v1/name")
@@ -42,39 +58,42 @@ public class MainController {
      * Main entry point for processing incoming topics other microservices will use this enpoint
      */
     @PostMapping("/api/v1/processTopic")
-    public ResponseEntity<Object> processRestTopics(@RequestBody String jsonString) {
+    public ResponseEntity<Object> processRestTopics(InputStream body) {
         LOG.info("Received an incoming topic... Processing now!");
-        System.out.println("\n\nJSON: " + jsonString + "\n\n");
-        JSONObject jsonNode = new JSONObject(jsonString);
-        String topicName = jsonNode.getString("topicName");
-        URL schemaUrl =
-                getClass().getClassLoader().getResource(SchemaService.getPathFor(topicName));
-        LOG.info("Schema URL: " + schemaUrl);
-        InputStream schemaStream = null;
+        // the body is parsed exactly once, this tree is used for dispatch, validation and binding
+        long start = metrics.start();
+        JSONObject jsonNode;
+        String topicName;
         try {
-            schemaStream = schemaValidator.getSchemaStream(SchemaService.getPathFor(topicName));
-        } catch (Exception e) {
-            LOG.error(e.getMessage());
-        }
-
-        if (schemaStream == null) {
-            LOG.error("No schema found for topic: " + topicName);
+            jsonNode = jsonCodec.parse(body);
+            topicName = jsonNode.getString("topicName");
+        } catch (RuntimeException e) {
+            metrics.record(Stage.PARSE, null, false, start);
+            throw e;
         }
+        metrics.record(Stage.PARSE, topicName, true, start);
+        // sampled and with card data redacted
+        payloadLogger.log(topicName, jsonNode);
 
         ResponseEntity<Object> response = null;
 
-        if (schemaValidator.validateJson(schemaStream, jsonNode)) {
-            ObjectMapper mapper = new ObjectMapper();
+        start = metrics.start();
+        boolean valid = schemaValidator.validateJson(topicName, jsonNode);
+        metrics.record(Stage.VALIDATE, topicName, valid, start);
+
+        if (valid) {
             try {
-                switch (jsonNode.getString("topicName")) {
+                switch (topicName) {
                     case "PaymentRequest": {
+                        start = metrics.start();
                         PaymentRequest paymentRequest =
-                                mapper.readValue(jsonNode.toString(), PaymentRequest.class);
+                                jsonCodec.bind(jsonNode, PaymentRequest.class);
+                        metrics.record(Stage.BIND, topicName, true, start);
                         response = businessLogic.processPaymentRequest(paymentRequest);
                     }
                         break;
                     default: {
-                        LOG.warn("Non-supported Topic: " + topicName);
+                        LOG.warn("Non-supported Topic: {}", topicName);
                         response = ResponseEntity.badRequest()
                                 .body("Non-supported Topic: " + topicName);
                     }
@@ -92,4 +111,15 @@ public class MainController {
 
         return response;
     }
+
+    /*
+     * Bulk entry point, takes PaymentRequest topics as NDJSON or a JSON array and streams back one
+     * PaymentResponse per line as each payment finishes
+     */
+    @PostMapping(value = "/api/v1/processTopics", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> processBulkTopics(InputStream body) {
+        LOG.info("Received a bulk topic request... Processing now!");
+        StreamingResponseBody responseBody = out -> bulkLogic.processPaymentRequests(body, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(responseBody);
+    }
 }
@@ -0,0 +1,66 @@
+package com.controller;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.postgres.PaymentExporter;
+import com.postgres.PaymentExporter.Filter;
+import com.postgres.PaymentExporter.Format;
+
+/*
+ * Full payment dumps for reconciliation, streamed straight from the database cursor to the client
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class PaymentExportController {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentExportController.class);
+
+    private final PaymentExporter paymentExporter;
+
+    public PaymentExportController(PaymentExporter paymentExporter) {
+        this.paymentExporter = paymentExporter;
+    }
+
+    /*
+     * format: ndjson (default) or csv, from/to: ISO-8601 instants, email: single customer,
+     * gzip: compress the download
+     */
+    @GetMapping("/api/v1/payments/export")
+    public ResponseEntity<?> exportPayments(@RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        Format exportFormat;
+        Filter filter;
+        try {
+            exportFormat = Format.valueOf(format.toUpperCase());
+            filter = new Filter(email, from == null ? null : Instant.parse(from),
+                    to == null ? null : Instant.parse(to));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            LOG.warn("Invalid payment export request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid export parameters: " + e.getMessage());
+        }
+
+        String fileName = "payments." + exportFormat.name().toLowerCase() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody body = out -> paymentExporter.export(exportFormat, filter, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,50 @@
+package com.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.postgres.PostgresService;
+
+/*
+ * Read API for a customer's payment history, paged with a keyset cursor so deep pages cost the
+ * same as the first one
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class PaymentHistoryController {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentHistoryController.class);
+
+    private final PostgresService postgresService;
+
+    @Value("${payment.history.default-page-size:50}")
+    private int defaultPageSize;
+    @Value("${payment.history.max-page-size:500}")
+    private int maxPageSize;
+
+    public PaymentHistoryController(PostgresService postgresService) {
+        this.postgresService = postgresService;
+    }
+
+    @GetMapping("/api/v1/payments/history")
+    public ResponseEntity<Object> paymentHistory(@RequestParam String email,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) String cursor) {
+        int size = pageSize == null ? defaultPageSize : pageSize;
+        if (size < 1 || size > maxPageSize) {
+            return ResponseEntity.badRequest().body("pageSize must be between 1 and " + maxPageSize);
+        }
+
+        try {
+            return ResponseEntity.ok(postgresService.findPaymentHistory(email, cursor, size));
+        } catch (IllegalArgumentException e) {
+            LOG.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
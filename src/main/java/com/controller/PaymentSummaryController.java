@@ -0,0 +1,31 @@
+package com.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.postgres.PostgresService;
+
+/*
+ * Read API for a customer's totals (payments, total paid, cash paid, reward cash applied), served
+ * from the summary row kept with every payment insert instead of summing the customer's payments
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class PaymentSummaryController {
+    private final PostgresService postgresService;
+
+    public PaymentSummaryController(PostgresService postgresService) {
+        this.postgresService = postgresService;
+    }
+
+    @GetMapping("/api/v1/payments/summary")
+    public ResponseEntity<Object> paymentSummary(@RequestParam String email) {
+        if (email.isBlank()) {
+            return ResponseEntity.badRequest().body("email is required");
+        }
+        return ResponseEntity.ok(postgresService.findPaymentSummary(email));
+    }
+}
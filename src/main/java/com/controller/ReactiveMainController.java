@@ -0,0 +1,135 @@
+package com.controller;
+
+import java.time.Duration;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import com.businessLogic.ReactiveBusinessLogic;
+import com.deadline.Deadline;
+import com.deadline.DeadlineFilter;
+import com.json.JsonCodec;
+import com.logging.PayloadLogger;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
+import com.schema.SchemaValidator;
+import com.topics.PaymentRequest;
+import com.topics.PaymentResponse;
+import reactor.core.publisher.Mono;
+
+/*
+ * MainController for the reactive stack (spring.main.web-application-type=reactive), served by
+ * WebFlux on Netty. Same topics, validation, status codes and bodies as MainController, the
+ * payment itself runs through ReactiveBusinessLogic. Bulk, history and export stay servlet only.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveMainController {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveMainController.class);
+
+    private final SchemaValidator schemaValidator;
+    private final ReactiveBusinessLogic businessLogic;
+    private final JsonCodec jsonCodec;
+    private final PipelineMetrics metrics;
+    private final PayloadLogger payloadLogger;
+    private final long defaultDeadlineMs;
+    private final long maxDeadlineMs;
+
+    public ReactiveMainController(SchemaValidator schemaValidator, ReactiveBusinessLogic businessLogic,
+            JsonCodec jsonCodec, PipelineMetrics metrics, PayloadLogger payloadLogger,
+            @Value("${request.deadline.default-ms:5000}") long defaultDeadlineMs,
+            @Value("${request.deadline.max-ms:30000}") long maxDeadlineMs) {
+        this.schemaValidator = schemaValidator;
+        this.businessLogic = businessLogic;
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+        this.payloadLogger = payloadLogger;
+        this.defaultDeadlineMs = defaultDeadlineMs;
+        this.maxDeadlineMs = maxDeadlineMs;
+    }
+
+    @GetMapping("/api/v1/name")
+    public String microserviceName() {
+        return "This microservice is the [PAYMENT-SERVICE]!";
+    }
+
+    @PostMapping("/api/v1/processTopic")
+    public Mono<ResponseEntity<Object>> processRestTopics(@RequestBody String body,
+            @RequestHeader(value = DeadlineFilter.TIMEOUT_HEADER, required = false) String timeoutHeader) {
+        LOG.info("Received an incoming topic... Processing now!");
+        Deadline deadline = Deadline.after(Duration.ofMillis(
+                DeadlineFilter.budgetMs(timeoutHeader, defaultDeadlineMs, maxDeadlineMs)));
+
+        long start = metrics.start();
+        JSONObject jsonNode;
+        String topicName;
+        try {
+            jsonNode = new JSONObject(body);
+            topicName = jsonNode.getString("topicName");
+        } catch (RuntimeException e) {
+            metrics.record(Stage.PARSE, null, false, start);
+            throw e;
+        }
+        metrics.record(Stage.PARSE, topicName, true, start);
+        payloadLogger.log(topicName, jsonNode);
+
+        start = metrics.start();
+        boolean valid = schemaValidator.validateJson(topicName, jsonNode);
+        metrics.record(Stage.VALIDATE, topicName, valid, start);
+        if (!valid) {
+            LOG.error("Failed schema validation...");
+            return Mono.just(ResponseEntity.badRequest().body("Schema Validation Failed for topic: " + topicName));
+        }
+
+        if (!"PaymentRequest".equals(topicName)) {
+            LOG.warn("Non-supported Topic: {}", topicName);
+            return Mono.just(ResponseEntity.badRequest().body("Non-supported Topic: " + topicName));
+        }
+
+        Mono<ResponseEntity<Object>> response = Mono.defer(() -> {
+            long bindStart = metrics.start();
+            PaymentRequest paymentRequest;
+            try {
+                paymentRequest = jsonCodec.bind(jsonNode, PaymentRequest.class);
+            } catch (Exception e) {
+                return Mono.error(e);
+            }
+            metrics.record(Stage.BIND, topicName, true, bindStart);
+            return businessLogic.processPaymentRequest(paymentRequest, deadline);
+        });
+
+        return response
+                .map(this::serialize)
+                .onErrorResume(e -> {
+                    LOG.error(e.getMessage());
+                    return Mono.just(ResponseEntity.status(500).body("Inernal Error Failed to process " + topicName));
+                });
+    }
+
+    // PaymentResponses are written with the JsonCodec like the TopicMessageConverter does
+    private ResponseEntity<Object> serialize(ResponseEntity<Object> response) {
+        if (!(response.getBody() instanceof PaymentResponse topic)) {
+            return response;
+        }
+        long start = metrics.start();
+        boolean written = false;
+        try {
+            byte[] json = jsonCodec.writerFor(PaymentResponse.class).writeValueAsBytes(topic);
+            written = true;
+            return ResponseEntity.status(response.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to write " + topic.getClass().getSimpleName(), e);
+        } finally {
+            metrics.record(Stage.SERIALIZE, topic.getClass().getSimpleName(), written, start);
+        }
+    }
+}
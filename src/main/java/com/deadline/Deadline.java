@@ -0,0 +1,65 @@
+package com.deadline;
+
+import java.time.Duration;
+
+/*
+ * The point in time by which the work for a request has to be done. The deadline of the request
+ * being processed is bound to the current thread (see attach), downstream calls only get the time
+ * that is left and give up once it has passed.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    // deadline of the work on this thread, null when there is none
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    // throws when the current deadline has passed, does nothing without one
+    public static void check(String work) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException(work);
+        }
+    }
+
+    /*
+     * Makes this the deadline of the current thread until the returned scope is closed, the
+     * previous deadline (if any) is restored on close.
+     */
+    public Scope attach() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, (expiresAtNanos - System.nanoTime()) / 1_000_000);
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,10 @@
+package com.deadline;
+
+/*
+ * Thrown instead of starting work whose request deadline has already passed
+ */
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String work) {
+        super("Deadline exceeded before " + work);
+    }
+}
@@ -0,0 +1,51 @@
+package com.deadline;
+
+import java.io.IOException;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Starts the deadline of every incoming request. The caller's remaining budget comes in the
+ * X-Request-Timeout-Ms header (relative so clocks don't have to agree), without it the request
+ * gets request.deadline.default-ms. Budgets are capped at request.deadline.max-ms.
+ */
+@Component
+public class DeadlineFilter extends OncePerRequestFilter {
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final long defaultMs;
+    private final long maxMs;
+
+    public DeadlineFilter(@Value("${request.deadline.default-ms:5000}") long defaultMs,
+            @Value("${request.deadline.max-ms:30000}") long maxMs) {
+        this.defaultMs = defaultMs;
+        this.maxMs = maxMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long budgetMs = budgetMs(request.getHeader(TIMEOUT_HEADER), defaultMs, maxMs);
+        try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(budgetMs)).attach()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    // budget of a request from its X-Request-Timeout-Ms header, also used by the reactive stack
+    public static long budgetMs(String header, long defaultMs, long maxMs) {
+        if (header != null) {
+            try {
+                return Math.min(Math.max(0, Long.parseLong(header.trim())), maxMs);
+            } catch (NumberFormatException e) {
+                // ignore a malformed header, use the default budget
+            }
+        }
+        return defaultMs;
+    }
+}
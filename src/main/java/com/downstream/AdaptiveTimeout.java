@@ -0,0 +1,57 @@
+package com.downstream;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Response timeout for one downstream service that follows its observed latency: a percentile of
+ * the last SAMPLES calls times a multiplier, kept between min and max (the configured read
+ * timeout). Recomputed every RECOMPUTE_EVERY calls on the calling thread, reading it is a
+ * volatile read.
+ */
+public class AdaptiveTimeout {
+    private static final int SAMPLES = 256;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+    private final double multiplier;
+    private final long minMs;
+    private final long maxMs;
+
+    private final AtomicLongArray latencyNanos = new AtomicLongArray(SAMPLES);
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long timeoutMs;
+
+    public AdaptiveTimeout(double percentile, double multiplier, long minMs, long maxMs) {
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minMs = minMs;
+        this.maxMs = maxMs;
+        // nothing observed yet, start from the configured timeout
+        this.timeoutMs = maxMs;
+    }
+
+    public void record(long nanos) {
+        long n = recorded.getAndIncrement();
+        latencyNanos.set((int) (n % SAMPLES), nanos);
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            recompute(Math.min(n + 1, SAMPLES));
+        }
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    private void recompute(long samples) {
+        long[] sorted = new long[(int) samples];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = latencyNanos.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        long observedMs = (long) Math.ceil(sorted[Math.max(0, index)] * multiplier / 1_000_000.0);
+        timeoutMs = Math.max(minMs, Math.min(maxMs, observedMs));
+    }
+}
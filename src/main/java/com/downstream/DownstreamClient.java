@@ -0,0 +1,116 @@
+package com.downstream;
+
+import java.util.function.Supplier;
+import org.springframework.web.client.RestClient;
+import com.deadline.Deadline;
+import com.deadline.DeadlineExceededException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/*
+ * A RestClient bound to one downstream microservice, backed by its own connection pool and
+ * guarded by a bulkhead (max calls in flight) and a circuit breaker. Calls get an adaptive
+ * response timeout capped by what is left of the request deadline.
+ */
+public class DownstreamClient {
+    private final DownstreamService service;
+    private final String uri;
+    private final RestClient restClient;
+    private final InstrumentedConnectionManager connectionManager;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final AdaptiveTimeout adaptiveTimeout;
+
+    public DownstreamClient(DownstreamService service, String uri, RestClient restClient,
+            InstrumentedConnectionManager connectionManager) {
+        this(service, uri, restClient, connectionManager, CircuitBreaker.ofDefaults(service.getKey()),
+                Bulkhead.ofDefaults(service.getKey()), null);
+    }
+
+    public DownstreamClient(DownstreamService service, String uri, RestClient restClient,
+            InstrumentedConnectionManager connectionManager, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+            AdaptiveTimeout adaptiveTimeout) {
+        this.service = service;
+        this.uri = uri;
+        this.restClient = restClient;
+        this.connectionManager = connectionManager;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.adaptiveTimeout = adaptiveTimeout;
+    }
+
+    /*
+     * Runs a request through the bulkhead and the circuit breaker. Throws DeadlineExceededException,
+     * BulkheadFullException or CallNotPermittedException without calling the service when the
+     * deadline has passed or either one rejects it, see isRejected and isNotSent.
+     */
+    public <T> T call(Supplier<T> request) {
+        Deadline.check("calling " + service.getKey());
+        // bulkhead outside so its rejections don't count as failures of the service
+        return bulkhead.executeSupplier(() -> circuitBreaker.executeSupplier(() -> timed(request)));
+    }
+
+    // true when the service is unavailable and the request was never sent, the caller can take its fallback
+    public static boolean isRejected(Throwable e) {
+        return e instanceof CallNotPermittedException || e instanceof BulkheadFullException;
+    }
+
+    /*
+     * true when the request was never sent, rejected or too late. Unlike a rejection a passed
+     * deadline is no reason to carry on without the service, the caller should give up instead.
+     */
+    public static boolean isNotSent(Throwable e) {
+        return isRejected(e) || e instanceof DeadlineExceededException;
+    }
+
+    // response timeout for a call made now: the adaptive timeout, capped by the request deadline
+    public static long timeoutMs(AdaptiveTimeout adaptiveTimeout) {
+        return timeoutMs(adaptiveTimeout, Deadline.current());
+    }
+
+    public static long timeoutMs(AdaptiveTimeout adaptiveTimeout, Deadline deadline) {
+        long timeoutMs = adaptiveTimeout == null ? Long.MAX_VALUE : adaptiveTimeout.getTimeoutMs();
+        return deadline == null ? timeoutMs : Math.min(timeoutMs, deadline.remainingMillis());
+    }
+
+    private <T> T timed(Supplier<T> request) {
+        long start = System.nanoTime();
+        try {
+            return request.get();
+        } finally {
+            if (adaptiveTimeout != null) {
+                adaptiveTimeout.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    public DownstreamService getService() {
+        return service;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public RestClient getRestClient() {
+        return restClient;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public AdaptiveTimeout getAdaptiveTimeout() {
+        return adaptiveTimeout;
+    }
+
+    public InstrumentedConnectionManager.PoolMetrics getPoolMetrics() {
+        return connectionManager.getPoolMetrics();
+    }
+}
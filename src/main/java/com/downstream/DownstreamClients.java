@@ -0,0 +1,186 @@
+package com.downstream;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import com.deadline.Deadline;
+import com.deadline.DeadlineFilter;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+/*
+ * Owns one pooled HTTP client per downstream microservice and routes topics to them.
+ *
+ * Pool settings per service (downstream.<key>.*, key is user-management or session-manager):
+ *   max-connections                 connections to the host, also the per route limit
+ *   connect-timeout-ms              TCP connect timeout
+ *   read-timeout-ms                 socket/response timeout
+ *   connection-request-timeout-ms   max wait for a free connection from the pool
+ *   keep-alive-seconds              max time a pooled connection is reused
+ *   bulkhead.max-concurrent         calls in flight, more are rejected right away
+ *   breaker.failure-rate-threshold  % of failed calls in the window that opens the breaker
+ *   breaker.slow-call-threshold-ms  calls slower than this count as slow
+ *   breaker.slow-call-rate-threshold  % of slow calls in the window that opens the breaker
+ *   breaker.window-size             calls the rates are computed over
+ *   breaker.open-duration-ms        time the breaker rejects calls before letting probes through
+ *   timeout.percentile              observed latency percentile the response timeout follows
+ *   timeout.multiplier              response timeout = percentile * multiplier
+ *   timeout.min-ms                  lower bound of the response timeout, read-timeout-ms is the upper
+ *
+ * Every call gets min(adaptive timeout, time left until the request deadline) as response timeout
+ * and passes the time left on in the X-Request-Timeout-Ms header.
+ */
+@Component
+public class DownstreamClients implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(DownstreamClients.class);
+
+    private final Map<DownstreamService, DownstreamClient> clients = new EnumMap<>(DownstreamService.class);
+    private final Map<DownstreamService, CloseableHttpClient> httpClients = new EnumMap<>(DownstreamService.class);
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+
+    public DownstreamClients(Environment environment) {
+        for (DownstreamService service : DownstreamService.values()) {
+            clients.put(service, createClient(service, environment));
+        }
+    }
+
+    public DownstreamClient get(DownstreamService service) {
+        return clients.get(service);
+    }
+
+    // topic -> microservice, every topic we send goes to the user-management-service
+    public DownstreamClient forTopic(String topicName) {
+        switch (topicName) {
+            case "AccountInfoRequest":
+            case "RewardsRequest":
+                return clients.get(DownstreamService.USER_MANAGEMENT);
+            default:
+                throw new IllegalArgumentException("No downstream service for topic: " + topicName);
+        }
+    }
+
+    public Collection<DownstreamClient> getAll() {
+        return clients.values();
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    public BulkheadRegistry getBulkheads() {
+        return bulkheads;
+    }
+
+    private DownstreamClient createClient(DownstreamService service, Environment env) {
+        String prefix = "downstream." + service.getKey() + ".";
+        int maxConnections = env.getProperty(prefix + "max-connections", Integer.class, 50);
+        long connectTimeoutMs = env.getProperty(prefix + "connect-timeout-ms", Long.class, 1000L);
+        long readTimeoutMs = env.getProperty(prefix + "read-timeout-ms", Long.class, 5000L);
+        long connectionRequestTimeoutMs =
+                env.getProperty(prefix + "connection-request-timeout-ms", Long.class, 1000L);
+        long keepAliveSeconds = env.getProperty(prefix + "keep-alive-seconds", Long.class, 30L);
+
+        String uri = "http://" + env.getRequiredProperty(service.getHostProperty()) + ":"
+                + env.getRequiredProperty(service.getHostProperty() + ".port") + service.getPath();
+
+        InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setTimeToLive(TimeValue.ofSeconds(keepAliveSeconds))
+                .build());
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAliveSeconds, TimeUnit.SECONDS))
+                .build();
+        httpClients.put(service, httpClient);
+
+        AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout(
+                env.getProperty(prefix + "timeout.percentile", Double.class, 0.99),
+                env.getProperty(prefix + "timeout.multiplier", Double.class, 2.0),
+                env.getProperty(prefix + "timeout.min-ms", Long.class, 100L),
+                readTimeoutMs);
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        // resolved per request on the calling thread, so it sees that request's deadline
+        requestFactory.setHttpContextFactory((method, requestUri) -> {
+            long timeoutMs = Math.max(1, DownstreamClient.timeoutMs(adaptiveTimeout));
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(Math.min(connectionRequestTimeoutMs, timeoutMs)))
+                    .setResponseTimeout(Timeout.ofMilliseconds(timeoutMs))
+                    .build());
+            return context;
+        });
+
+        RestClient restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .requestInterceptor((request, body, execution) -> {
+                    Deadline deadline = Deadline.current();
+                    if (deadline != null) {
+                        request.getHeaders().set(DeadlineFilter.TIMEOUT_HEADER, Long.toString(deadline.remainingMillis()));
+                    }
+                    return execution.execute(request, body);
+                })
+                .build();
+
+        int maxConcurrent = env.getProperty(prefix + "bulkhead.max-concurrent", Integer.class, maxConnections);
+        Bulkhead bulkhead = bulkheads.bulkhead(service.getKey(), BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrent)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(service.getKey(), CircuitBreakerConfig.custom()
+                .failureRateThreshold(env.getProperty(prefix + "breaker.failure-rate-threshold", Float.class, 50f))
+                .slowCallDurationThreshold(Duration.ofMillis(
+                        env.getProperty(prefix + "breaker.slow-call-threshold-ms", Long.class, readTimeoutMs / 2)))
+                .slowCallRateThreshold(env.getProperty(prefix + "breaker.slow-call-rate-threshold", Float.class, 80f))
+                .slidingWindowSize(env.getProperty(prefix + "breaker.window-size", Integer.class, 50))
+                .minimumNumberOfCalls(env.getProperty(prefix + "breaker.window-size", Integer.class, 50) / 5)
+                .waitDurationInOpenState(Duration.ofMillis(
+                        env.getProperty(prefix + "breaker.open-duration-ms", Long.class, 10000L)))
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                LOG.warn("Circuit breaker for {}: {}", service, event.getStateTransition()));
+
+        LOG.info("Downstream client for {} at {} (pool {}, connect {} ms, read {} ms, bulkhead {})",
+                service, uri, maxConnections, connectTimeoutMs, readTimeoutMs, maxConcurrent);
+        return new DownstreamClient(service, uri, restClient, connectionManager, circuitBreaker, bulkhead,
+                adaptiveTimeout);
+    }
+
+    @Override
+    public void destroy() {
+        httpClients.values().forEach(httpClient -> httpClient.close(CloseMode.GRACEFUL));
+    }
+}
@@ -0,0 +1,35 @@
+package com.downstream;
+
+/*
+ * The microservices this service talks to and the endpoint used on each of them
+ * # user-management-service:8086
+ * # session-manager:8090
+ */
+public enum DownstreamService {
+    USER_MANAGEMENT("user-management", "user.management.service", "/api/v1/processTopic"),
+    SESSION_MANAGER("session-manager", "session.manager", "/api/v1/user");
+
+    // prefix of the pool settings, downstream.<key>.*
+    private final String key;
+    // existing host property, the port lives under <hostProperty>.port
+    private final String hostProperty;
+    private final String path;
+
+    DownstreamService(String key, String hostProperty, String path) {
+        this.key = key;
+        this.hostProperty = hostProperty;
+        this.path = path;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getHostProperty() {
+        return hostProperty;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,57 @@
+package com.downstream;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.Timeout;
+
+/*
+ * Connection pool that also records how many connections were leased and how long callers
+ * waited for one, on top of the leased/pending/available counts the pool already keeps.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest leaseRequest = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                try {
+                    ConnectionEndpoint endpoint = leaseRequest.get(timeout);
+                    leases.incrementAndGet();
+                    return endpoint;
+                } catch (TimeoutException e) {
+                    leaseTimeouts.incrementAndGet();
+                    throw e;
+                } finally {
+                    leaseWaitNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return leaseRequest.cancel();
+            }
+        };
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        PoolStats stats = getTotalStats();
+        return new PoolMetrics(stats.getLeased(), stats.getPending(), stats.getAvailable(),
+                stats.getMax(), leases.get(), leaseTimeouts.get(), leaseWaitNanos.get());
+    }
+
+    public record PoolMetrics(int leased, int pending, int available, int max, long leases,
+            long leaseTimeouts, long leaseWaitNanos) {}
+}
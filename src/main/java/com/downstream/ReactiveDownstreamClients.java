@@ -0,0 +1,118 @@
+package com.downstream;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.deadline.Deadline;
+import com.deadline.DeadlineExceededException;
+import com.deadline.DeadlineFilter;
+import io.github.resilience4j.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.circuitbreaker.operator.CircuitBreakerOperator;
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/*
+ * Non-blocking counterpart of DownstreamClients for the reactive stack: one WebClient per
+ * downstream microservice on its own Reactor Netty connection pool, sized by the same
+ * downstream.<key>.* settings. Calls go through the bulkhead, circuit breaker and adaptive timeout
+ * of the service's DownstreamClient, so both stacks share one view of the service's health.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveDownstreamClients implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveDownstreamClients.class);
+
+    private final DownstreamClients downstreamClients;
+    private final Map<DownstreamService, WebClient> webClients = new EnumMap<>(DownstreamService.class);
+    private final Map<DownstreamService, ConnectionProvider> connectionProviders = new EnumMap<>(DownstreamService.class);
+
+    public ReactiveDownstreamClients(DownstreamClients downstreamClients, Environment environment) {
+        this.downstreamClients = downstreamClients;
+        for (DownstreamService service : DownstreamService.values()) {
+            webClients.put(service, createClient(service, downstreamClients.get(service).getUri(), environment));
+        }
+    }
+
+    /*
+     * POSTs a JSON topic and emits the response body, completes empty when there is none. Fails with
+     * DeadlineExceededException, BulkheadFullException or CallNotPermittedException without calling
+     * the service, see DownstreamClient.isRejected and isNotSent.
+     */
+    public Mono<String> post(DownstreamService service, String json, Deadline deadline) {
+        DownstreamClient guard = downstreamClients.get(service);
+        WebClient webClient = webClients.get(service);
+        Mono<String> guarded = Mono.defer(() -> {
+            long timeoutMs = Math.max(1, DownstreamClient.timeoutMs(guard.getAdaptiveTimeout(), deadline));
+            WebClient.RequestBodySpec request = webClient.post().contentType(MediaType.APPLICATION_JSON);
+            if (deadline != null) {
+                request.header(DeadlineFilter.TIMEOUT_HEADER, Long.toString(deadline.remainingMillis()));
+            }
+            long start = System.nanoTime();
+            return request.bodyValue(json)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .doFinally(signal -> {
+                        if (guard.getAdaptiveTimeout() != null) {
+                            guard.getAdaptiveTimeout().record(System.nanoTime() - start);
+                        }
+                    });
+        })
+                // bulkhead outside so its rejections don't count as failures of the service
+                .transformDeferred(CircuitBreakerOperator.of(guard.getCircuitBreaker()))
+                .transformDeferred(BulkheadOperator.of(guard.getBulkhead()));
+
+        return Mono.defer(() -> deadline != null && deadline.isExpired()
+                ? Mono.error(new DeadlineExceededException("calling " + service.getKey()))
+                : guarded);
+    }
+
+    private WebClient createClient(DownstreamService service, String uri, Environment env) {
+        String prefix = "downstream." + service.getKey() + ".";
+        int maxConnections = env.getProperty(prefix + "max-connections", Integer.class, 50);
+        long connectTimeoutMs = env.getProperty(prefix + "connect-timeout-ms", Long.class, 1000L);
+        long readTimeoutMs = env.getProperty(prefix + "read-timeout-ms", Long.class, 5000L);
+        long connectionRequestTimeoutMs =
+                env.getProperty(prefix + "connection-request-timeout-ms", Long.class, 1000L);
+        long keepAliveSeconds = env.getProperty(prefix + "keep-alive-seconds", Long.class, 30L);
+
+        // pool stats as reactor.netty.connection.provider.* meters
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(service.getKey())
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeoutMs))
+                .maxLifeTime(Duration.ofSeconds(keepAliveSeconds))
+                .maxIdleTime(Duration.ofSeconds(keepAliveSeconds))
+                .evictInBackground(Duration.ofSeconds(keepAliveSeconds))
+                .metrics(true)
+                .build();
+        connectionProviders.put(service, connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+
+        LOG.info("Reactive downstream client for {} at {} (pool {}, connect {} ms, read {} ms)",
+                service, uri, maxConnections, connectTimeoutMs, readTimeoutMs);
+        return WebClient.builder()
+                .baseUrl(uri)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.values().forEach(ConnectionProvider::dispose);
+    }
+}
@@ -0,0 +1,68 @@
+package com.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.datatype.jsonorg.JsonOrgModule;
+
+/*
+ * Shared JSON plumbing for the topics. A request body is parsed once into a JSONObject tree
+ * which drives dispatch and schema validation, and is then bound to the ICD classes straight
+ * from that tree. Readers and writers are built once per type and reused by every request.
+ */
+@Component
+public class JsonCodec {
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JsonOrgModule())
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    // Parses the body directly from the stream, no intermediate String
+    public JSONObject parse(InputStream body) {
+        return new JSONObject(new JSONTokener(body));
+    }
+
+    // Binds an already parsed tree to a topic class without writing it back out to text
+    public <T> T bind(JSONObject tree, Class<T> type) throws IOException {
+        try (TokenBuffer buffer = new TokenBuffer(mapper, false)) {
+            mapper.writeValue(buffer, tree);
+            return readerFor(type).readValue(buffer.asParser());
+        }
+    }
+
+    public <T> T read(String json, Class<T> type) throws JsonProcessingException {
+        return readerFor(type).readValue(json);
+    }
+
+    public <T> T read(InputStream json, Class<T> type) throws IOException {
+        return readerFor(type).readValue(json);
+    }
+
+    public void write(OutputStream out, Object value) throws IOException {
+        writerFor(value.getClass()).writeValue(out, value);
+    }
+
+    public String writeAsString(Object value) throws JsonProcessingException {
+        return writerFor(value.getClass()).writeValueAsString(value);
+    }
+
+    public ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    public ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, mapper::writerFor);
+    }
+}
@@ -0,0 +1,24 @@
+package com.json;
+
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import com.metrics.PipelineMetrics;
+
+@Configuration
+public class JsonConfig implements WebMvcConfigurer {
+    private final JsonCodec jsonCodec;
+    private final PipelineMetrics metrics;
+
+    public JsonConfig(JsonCodec jsonCodec, PipelineMetrics metrics) {
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+    }
+
+    // topics are written by the shared codec ahead of the default Jackson converter
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new TopicMessageConverter(jsonCodec, metrics));
+    }
+}
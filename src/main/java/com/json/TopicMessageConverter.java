@@ -0,0 +1,48 @@
+package com.json;
+
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import com.metrics.PipelineMetrics;
+import com.metrics.PipelineMetrics.Stage;
+
+/*
+ * Writes the ICD topic classes (com.topics) directly to the response stream using the shared
+ * writers from the JsonCodec.
+ */
+public class TopicMessageConverter extends AbstractHttpMessageConverter<Object> {
+    private static final String TOPICS_PACKAGE = "com.topics";
+
+    private final JsonCodec jsonCodec;
+    private final PipelineMetrics metrics;
+
+    public TopicMessageConverter(JsonCodec jsonCodec, PipelineMetrics metrics) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TOPICS_PACKAGE.equals(clazz.getPackageName());
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return jsonCodec.read(inputMessage.getBody(), clazz);
+    }
+
+    @Override
+    protected void writeInternal(Object topic, HttpOutputMessage outputMessage) throws IOException {
+        long start = metrics.start();
+        boolean written = false;
+        try {
+            jsonCodec.write(outputMessage.getBody(), topic);
+            written = true;
+        } finally {
+            metrics.record(Stage.SERIALIZE, topic.getClass().getSimpleName(), written, start);
+        }
+    }
+}
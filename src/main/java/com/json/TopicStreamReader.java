@@ -0,0 +1,71 @@
+package com.json;
+
+import java.io.InputStream;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/*
+ * Reads topics one at a time from a body that is either NDJSON (one object per line) or a JSON
+ * array of objects, without buffering the whole body. Each topic comes back as its own JSONObject
+ * tree, the same shape the single topic endpoint works with.
+ */
+public class TopicStreamReader {
+    private final JSONTokener tokener;
+    private boolean started;
+    private boolean array;
+    private boolean finished;
+
+    public TopicStreamReader(InputStream body) {
+        this.tokener = new JSONTokener(body);
+    }
+
+    /*
+     * Returns the next topic or null once the body is exhausted. A value that isn't a JSON object
+     * throws an IllegalArgumentException and reading can carry on with the next one, malformed JSON
+     * throws a JSONException and the rest of the body can't be read.
+     */
+    public JSONObject next() {
+        if (finished) {
+            return null;
+        }
+
+        char c = tokener.nextClean();
+        if (!started) {
+            started = true;
+            if (c == '[') {
+                array = true;
+                c = tokener.nextClean();
+                if (c == ']') {
+                    return end();
+                }
+            }
+        } else if (array) {
+            if (c == ']') {
+                return end();
+            }
+            if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or ']' between topics");
+            }
+            c = tokener.nextClean();
+        }
+
+        if (c == 0) {
+            if (array) {
+                throw tokener.syntaxError("Unterminated array of topics");
+            }
+            return end();
+        }
+        tokener.back();
+
+        Object value = tokener.nextValue();
+        if (!(value instanceof JSONObject topic)) {
+            throw new IllegalArgumentException("Expected a topic object but found: " + value);
+        }
+        return topic;
+    }
+
+    private JSONObject end() {
+        finished = true;
+        return null;
+    }
+}
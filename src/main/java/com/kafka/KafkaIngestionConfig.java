@@ -0,0 +1,76 @@
+package com.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+
+/*
+ * Kafka ingestion mode, only active with kafka.ingestion.enabled=true. The listener gets whole
+ * polls (up to spring.kafka.consumer.max-poll-records) as one batch and the offsets of a batch are
+ * committed once the listener returns, i.e. after its payments are stored and the responses sent.
+ * A batch that fails is redelivered, payments that already went through are answered from the
+ * IdempotencyCache instead of being charged again. A batch that still fails after the retries is
+ * published record by record to the dead letter topic (same partition, original key and value,
+ * kafka_dlt-* headers with the exception) before its offsets are committed, so nothing is dropped.
+ * Replaying the dead letters is safe for the same reason a redelivery is.
+ */
+@Configuration
+@ConditionalOnProperty(name = "kafka.ingestion.enabled", havingValue = "true")
+public class KafkaIngestionConfig {
+    public static final String BATCH_FACTORY = "paymentBatchFactory";
+
+    @Value("${kafka.ingestion.request-topic:payment-requests}")
+    private String requestTopic;
+    @Value("${kafka.ingestion.reply-topic:payment-responses}")
+    private String replyTopic;
+    @Value("${kafka.ingestion.dead-letter-topic:payment-requests-dlt}")
+    private String deadLetterTopic;
+    @Value("${kafka.ingestion.partitions:6}")
+    private int partitions;
+    @Value("${kafka.ingestion.concurrency:3}")
+    private int concurrency;
+
+    @Bean(name = BATCH_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> paymentBatchFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, String> kafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(AckMode.BATCH);
+        // redeliver a failed batch 3 times a second apart, then dead letter its records and move on
+        DeadLetterPublishingRecoverer deadLetters = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(deadLetterTopic, record.partition()));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetters, new FixedBackOff(1000L, 3)));
+        return factory;
+    }
+
+    @Bean
+    public NewTopic paymentRequestTopic() {
+        return TopicBuilder.name(requestTopic).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic paymentResponseTopic() {
+        return TopicBuilder.name(replyTopic).partitions(partitions).build();
+    }
+
+    // as many partitions as the request topic, a dead letter keeps the partition of its record
+    @Bean
+    public NewTopic paymentDeadLetterTopic() {
+        return TopicBuilder.name(deadLetterTopic).partitions(partitions).build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import com.businessLogic.BulkLogic;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.json.JsonCodec;
+import com.topics.PaymentResponse;
+
+/*
+ * Consumes PaymentRequest topics from kafka.ingestion.request-topic a poll at a time. The batch
+ * goes through the same schema validation and BusinessLogic as the HTTP endpoints (BulkLogic),
+ * its inserts are grouped by the PaymentWriter, and every PaymentResponse is published to
+ * kafka.ingestion.reply-topic keyed by correlatorId. The listener only returns once all responses
+ * are acknowledged by the broker, so the batch's offsets are never committed ahead of its payments.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.ingestion.enabled", havingValue = "true")
+public class PaymentRequestConsumer {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentRequestConsumer.class);
+
+    private final BulkLogic bulkLogic;
+    private final JsonCodec jsonCodec;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String replyTopic;
+    private final long sendTimeoutMs;
+
+    public PaymentRequestConsumer(BulkLogic bulkLogic, JsonCodec jsonCodec, KafkaTemplate<String, String> kafkaTemplate,
+            @Value("${kafka.ingestion.reply-topic:payment-responses}") String replyTopic,
+            @Value("${kafka.ingestion.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.bulkLogic = bulkLogic;
+        this.jsonCodec = jsonCodec;
+        this.kafkaTemplate = kafkaTemplate;
+        this.replyTopic = replyTopic;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    @KafkaListener(id = "payment-requests", topics = "${kafka.ingestion.request-topic:payment-requests}",
+            containerFactory = KafkaIngestionConfig.BATCH_FACTORY)
+    public void consume(List<ConsumerRecord<String, String>> records) throws Exception {
+        List<JSONObject> topics = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            topics.add(parse(record));
+        }
+
+        List<PaymentResponse> responses = bulkLogic.processBatch(topics);
+
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            PaymentResponse response = responses.get(i);
+            String key = response.getCorrelatorId() != null ? String.valueOf(response.getCorrelatorId()) : records.get(i).key();
+            sends.add(kafkaTemplate.send(replyTopic, key, serialize(response)));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // thrown so the batch isn't committed, the redelivery is answered from the IdempotencyCache
+            LOG.error("Failed to publish PaymentResponses for a batch of {}: {}", records.size(), e.getMessage());
+            throw e;
+        }
+        LOG.info("Processed a batch of {} PaymentRequests from Kafka", records.size());
+    }
+
+    // an unreadable record becomes a FAILED response rather than blocking the partition
+    private JSONObject parse(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            LOG.warn("Empty PaymentRequest record at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return null;
+        }
+        try {
+            return new JSONObject(record.value());
+        } catch (JSONException e) {
+            LOG.warn("Malformed PaymentRequest record at {}-{}@{}: {}", record.topic(), record.partition(),
+                    record.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String serialize(PaymentResponse response) {
+        try {
+            return jsonCodec.writeAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize PaymentResponse", e);
+        }
+    }
+}
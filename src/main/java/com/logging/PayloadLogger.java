@@ -0,0 +1,69 @@
+package com.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Logs full topic payloads for one request in every payload.logging.sample-rate (0 turns it off).
+ * Card numbers are masked down to their last 4 digits and cvc values are never logged.
+ *
+ * Requests that aren't sampled cost one counter increment, the redacted copy is only built for
+ * the sampled ones.
+ */
+@Component
+public class PayloadLogger {
+    private static final Logger LOG = LoggerFactory.getLogger(PayloadLogger.class);
+
+    private final long sampleRate;
+    private final AtomicLong requests = new AtomicLong();
+
+    public PayloadLogger(@Value("${payload.logging.sample-rate:0}") long sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public void log(String topicName, JSONObject payload) {
+        if (sampleRate <= 0 || !LOG.isInfoEnabled() || requests.getAndIncrement() % sampleRate != 0) {
+            return;
+        }
+        LOG.info("{} payload: {}", topicName, redact(payload));
+    }
+
+    // copy of the payload with card data masked, the original is left untouched
+    public static JSONObject redact(JSONObject payload) {
+        JSONObject redacted = new JSONObject();
+        for (String key : payload.keySet()) {
+            redacted.put(key, redact(key, payload.get(key)));
+        }
+        return redacted;
+    }
+
+    private static Object redact(String key, Object value) {
+        if (value instanceof JSONObject object) {
+            return redact(object);
+        }
+        if (value instanceof JSONArray array) {
+            JSONArray redacted = new JSONArray();
+            for (Object element : array) {
+                redacted.put(redact(key, element));
+            }
+            return redacted;
+        }
+        switch (key) {
+            case "cvc":
+                return "***";
+            case "creditCard":
+                return maskCard(String.valueOf(value));
+            default:
+                return value;
+        }
+    }
+
+    private static String maskCard(String card) {
+        return card.length() <= 4 ? "****" : "*".repeat(card.length() - 4) + card.substring(card.length() - 4);
+    }
+}
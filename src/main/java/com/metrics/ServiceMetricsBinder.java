@@ -0,0 +1,222 @@
+package com.metrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import com.businessLogic.RewardsAccrualAggregator;
+import com.cache.AccountCache;
+import com.cache.IdempotencyCache;
+import com.cache.PaymentSummaryCache;
+import com.cache.SessionUserCache;
+import com.config.ExecutorMetrics;
+import com.config.VirtualThreadPinningMonitor;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamClients;
+import com.postgres.ConnectionUsageTracker;
+import com.postgres.PaymentPartitionMaintainer;
+import com.postgres.PaymentWriter;
+import com.schema.SchemaRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/*
+ * Publishes the counters the components already keep (schema registry, executors, downstream
+ * pools, caches, payment writer, reward accrual, JDBC connection usage) as meters. Nothing is counted twice, the
+ * meters read the existing stats when Prometheus scrapes.
+ */
+@Component
+public class ServiceMetricsBinder implements MeterBinder {
+    private final SchemaRegistry schemaRegistry;
+    private final List<ExecutorMetrics> executorMetrics;
+    private final DownstreamClients downstreamClients;
+    private final AccountCache accountCache;
+    private final IdempotencyCache idempotencyCache;
+    private final SessionUserCache sessionUserCache;
+    private final PaymentSummaryCache paymentSummaryCache;
+    private final PaymentWriter paymentWriter;
+    private final RewardsAccrualAggregator rewardsAccrual;
+    private final PaymentPartitionMaintainer partitionMaintainer;
+    private final ObjectProvider<ConnectionUsageTracker> connectionUsageTracker;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+
+    public ServiceMetricsBinder(SchemaRegistry schemaRegistry, List<ExecutorMetrics> executorMetrics,
+            DownstreamClients downstreamClients, AccountCache accountCache, IdempotencyCache idempotencyCache,
+            SessionUserCache sessionUserCache, PaymentSummaryCache paymentSummaryCache, PaymentWriter paymentWriter,
+            RewardsAccrualAggregator rewardsAccrual, PaymentPartitionMaintainer partitionMaintainer,
+            ObjectProvider<ConnectionUsageTracker> connectionUsageTracker,
+            ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        this.schemaRegistry = schemaRegistry;
+        this.executorMetrics = executorMetrics;
+        this.downstreamClients = downstreamClients;
+        this.accountCache = accountCache;
+        this.idempotencyCache = idempotencyCache;
+        this.sessionUserCache = sessionUserCache;
+        this.paymentSummaryCache = paymentSummaryCache;
+        this.paymentWriter = paymentWriter;
+        this.rewardsAccrual = rewardsAccrual;
+        this.partitionMaintainer = partitionMaintainer;
+        this.connectionUsageTracker = connectionUsageTracker;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindSchemaRegistry(registry);
+        bindExecutors(registry);
+        bindDownstreamPools(registry);
+        bindCaches(registry);
+        bindPersistence(registry);
+        bindRewardsAccrual(registry);
+
+        VirtualThreadPinningMonitor monitor = pinningMonitor.getIfAvailable();
+        if (monitor != null) {
+            FunctionCounter.builder("virtual.threads.pinned", monitor, VirtualThreadPinningMonitor::getPinnedEvents)
+                    .description("Virtual threads pinned longer than the threshold")
+                    .register(registry);
+        }
+    }
+
+    private void bindSchemaRegistry(MeterRegistry registry) {
+        FunctionCounter.builder("schema.registry.lookups", schemaRegistry, r -> r.getStats().hits())
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("schema.registry.lookups", schemaRegistry, r -> r.getStats().misses())
+                .tag("result", "miss").register(registry);
+        FunctionTimer.builder("schema.registry.compile", schemaRegistry,
+                r -> r.getStats().compilations(), r -> r.getStats().compileTimeNanos(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        Gauge.builder("schema.registry.size", schemaRegistry, r -> r.getStats().size())
+                .register(registry);
+    }
+
+    private void bindExecutors(MeterRegistry registry) {
+        for (ExecutorMetrics executor : executorMetrics) {
+            String name = executor.getName();
+            FunctionCounter.builder("payment.executor.tasks", executor, e -> e.snapshot().completed())
+                    .tags("executor", name, "result", "completed").register(registry);
+            FunctionCounter.builder("payment.executor.tasks", executor, e -> e.snapshot().failed())
+                    .tags("executor", name, "result", "failed").register(registry);
+            FunctionCounter.builder("payment.executor.tasks", executor, e -> e.snapshot().rejected())
+                    .tags("executor", name, "result", "rejected").register(registry);
+            Gauge.builder("payment.executor.active", executor, e -> e.snapshot().active())
+                    .tag("executor", name).register(registry);
+            FunctionTimer.builder("payment.executor.queue.wait", executor,
+                    e -> e.snapshot().submitted(), e -> e.snapshot().queueWaitNanos(), TimeUnit.NANOSECONDS)
+                    .tag("executor", name).register(registry);
+        }
+    }
+
+    private void bindDownstreamPools(MeterRegistry registry) {
+        for (DownstreamClient client : downstreamClients.getAll()) {
+            String service = client.getService().getKey();
+            Gauge.builder("downstream.pool.connections", client, c -> c.getPoolMetrics().leased())
+                    .tags("service", service, "state", "leased").register(registry);
+            Gauge.builder("downstream.pool.connections", client, c -> c.getPoolMetrics().available())
+                    .tags("service", service, "state", "available").register(registry);
+            Gauge.builder("downstream.pool.pending", client, c -> c.getPoolMetrics().pending())
+                    .tag("service", service).register(registry);
+            Gauge.builder("downstream.pool.max", client, c -> c.getPoolMetrics().max())
+                    .tag("service", service).register(registry);
+            FunctionTimer.builder("downstream.pool.lease.wait", client,
+                    c -> c.getPoolMetrics().leases(), c -> c.getPoolMetrics().leaseWaitNanos(), TimeUnit.NANOSECONDS)
+                    .tag("service", service).register(registry);
+            FunctionCounter.builder("downstream.pool.lease.timeouts", client, c -> c.getPoolMetrics().leaseTimeouts())
+                    .tag("service", service).register(registry);
+
+            if (client.getAdaptiveTimeout() != null) {
+                Gauge.builder("downstream.timeout", client.getAdaptiveTimeout(), t -> t.getTimeoutMs() / 1000.0)
+                        .description("Current adaptive response timeout")
+                        .baseUnit("seconds").tag("service", service).register(registry);
+            }
+
+            Counter bulkheadRejections = Counter.builder("downstream.bulkhead.rejected")
+                    .description("Calls rejected because too many were in flight")
+                    .tag("service", service).register(registry);
+            client.getBulkhead().getEventPublisher().onCallRejected(event -> bulkheadRejections.increment());
+        }
+
+        // breaker state, failure/slow call rates and not_permitted calls per service
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(downstreamClients.getCircuitBreakers()).bindTo(registry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(downstreamClients.getBulkheads()).bindTo(registry);
+    }
+
+    private void bindCaches(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accountCache.getCache(), "account");
+        CaffeineCacheMetrics.monitor(registry, paymentSummaryCache.getCache(), "payment_summary");
+
+        FunctionCounter.builder("idempotency.requests", idempotencyCache, c -> c.getStats().replayed())
+                .tag("result", "replayed").register(registry);
+        FunctionCounter.builder("idempotency.requests", idempotencyCache, c -> c.getStats().collapsed())
+                .tag("result", "collapsed").register(registry);
+        Gauge.builder("idempotency.in.flight", idempotencyCache, c -> c.getStats().inFlight())
+                .register(registry);
+        Gauge.builder("idempotency.cached", idempotencyCache, c -> c.getStats().cached())
+                .register(registry);
+
+        // session.lookups{result=call} is what reaches the session-manager, the rest is saved
+        FunctionCounter.builder("session.lookups", sessionUserCache, c -> c.getStats().calls())
+                .tag("result", "call").register(registry);
+        FunctionCounter.builder("session.lookups", sessionUserCache, c -> c.getStats().coalesced())
+                .tag("result", "coalesced").register(registry);
+        FunctionCounter.builder("session.lookups", sessionUserCache, c -> c.getStats().hits())
+                .tag("result", "cached").register(registry);
+    }
+
+    private void bindPersistence(MeterRegistry registry) {
+        FunctionCounter.builder("payment.writer.rows", paymentWriter, w -> w.getStats().inserts())
+                .tag("result", "inserted").register(registry);
+        FunctionCounter.builder("payment.writer.rows", paymentWriter, w -> w.getStats().failures())
+                .tag("result", "failed").register(registry);
+        FunctionCounter.builder("payment.writer.overflows", paymentWriter, w -> w.getStats().overflows())
+                .register(registry);
+        FunctionTimer.builder("payment.writer.flush", paymentWriter,
+                w -> w.getStats().commits(), w -> w.getStats().flushNanos(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        Gauge.builder("payment.writer.queued", paymentWriter, w -> w.getStats().queued())
+                .register(registry);
+
+        FunctionCounter.builder("payment.partitions", partitionMaintainer, m -> m.getStats().created())
+                .tag("action", "created").register(registry);
+        FunctionCounter.builder("payment.partitions", partitionMaintainer, m -> m.getStats().dropped())
+                .tag("action", "dropped").register(registry);
+        FunctionCounter.builder("payment.partitions.maintenance.failures", partitionMaintainer,
+                m -> m.getStats().failures()).register(registry);
+
+        // only with jdbc.connection-usage.enabled=true
+        ConnectionUsageTracker tracker = connectionUsageTracker.getIfAvailable();
+        if (tracker != null) {
+            FunctionTimer.builder("jdbc.connection.hold", tracker,
+                    t -> t.getUsage().released(), t -> t.getUsage().holdNanos(), TimeUnit.NANOSECONDS)
+                    .register(registry);
+            Gauge.builder("jdbc.connection.hold.max", tracker, t -> t.getUsage().maxHoldNanos() / 1e9)
+                    .baseUnit("seconds").register(registry);
+            Gauge.builder("jdbc.connection.open", tracker,
+                    t -> t.getUsage().acquired() - t.getUsage().released())
+                    .register(registry);
+        }
+    }
+
+    private void bindRewardsAccrual(MeterRegistry registry) {
+        // payments - requests is what the write-behind saved, rewards.accrual.saved counts it directly
+        FunctionCounter.builder("rewards.accrual.payments", rewardsAccrual, a -> a.getStats().accruals())
+                .register(registry);
+        FunctionCounter.builder("rewards.accrual.requests", rewardsAccrual, a -> a.getStats().requests())
+                .description("RewardsRequests sent to the user management service").register(registry);
+        FunctionCounter.builder("rewards.accrual.saved", rewardsAccrual, a -> a.getStats().merged())
+                .description("Payments folded into a pending RewardsRequest").register(registry);
+        FunctionCounter.builder("rewards.accrual.overflows", rewardsAccrual, a -> a.getStats().overflows())
+                .register(registry);
+        FunctionTimer.builder("rewards.accrual.flush", rewardsAccrual,
+                a -> a.getStats().flushes(), a -> a.getStats().flushNanos(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        Gauge.builder("rewards.accrual.pending", rewardsAccrual, a -> a.getStats().pending())
+                .register(registry);
+    }
+}
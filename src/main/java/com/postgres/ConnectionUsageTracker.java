@@ -0,0 +1,78 @@
+package com.postgres;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+/*
+ * Measures how long JDBC connections are held between being taken from the pool and handed back,
+ * which is what decides how many payments the Hikari pool can serve at once. Every connection goes
+ * through a proxy, so this is only on with jdbc.connection-usage.enabled=true, for a load test or an
+ * investigation. Hikari's own hikaricp.connections.usage timer is there without it.
+ */
+@Component
+@ConditionalOnProperty(name = "jdbc.connection-usage.enabled", havingValue = "true")
+public class ConnectionUsageTracker implements BeanPostProcessor {
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong holdNanos = new AtomicLong();
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof TrackingDataSource)) {
+            return new TrackingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    public Usage getUsage() {
+        return new Usage(acquired.get(), released.get(), holdNanos.get(), maxHoldNanos.get());
+    }
+
+    private Connection track(Connection connection) {
+        acquired.incrementAndGet();
+        long start = System.nanoTime();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && !connection.isClosed()) {
+                        long held = System.nanoTime() - start;
+                        released.incrementAndGet();
+                        holdNanos.addAndGet(held);
+                        maxHoldNanos.accumulate(held);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private class TrackingDataSource extends DelegatingDataSource {
+        TrackingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return track(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return track(super.getConnection(username, password));
+        }
+    }
+
+    // Connections handed out/returned and the time they were held, average is holdNanos/released
+    public record Usage(long acquired, long released, long holdNanos, long maxHoldNanos) {}
+}
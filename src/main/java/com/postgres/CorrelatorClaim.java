@@ -0,0 +1,14 @@
+package com.postgres;
+
+/*
+ * Outcome of claiming a PaymentRequest's correlatorId before its reward points are redeemed, the
+ * claim is a row in payment_correlators (see the V10 migration) so it holds across instances.
+ */
+public enum CorrelatorClaim {
+    // this request holds the correlatorId and processes the payment
+    CLAIMED,
+    // the payment is already stored
+    STORED,
+    // another request is processing it right now, possibly on another instance
+    IN_PROGRESS
+}
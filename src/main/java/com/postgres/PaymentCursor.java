@@ -0,0 +1,28 @@
+package com.postgres;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/*
+ * Position in a customer's payment history, the (initial_time_stamp, id) of the last row of a
+ * page. Handed to callers as an opaque string and used as the seek predicate for the next page.
+ */
+public record PaymentCursor(Instant initialTimeStamp, Long id) {
+
+    public String encode() {
+        String raw = initialTimeStamp.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new PaymentCursor(Instant.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid payment history cursor: " + cursor, e);
+        }
+    }
+}
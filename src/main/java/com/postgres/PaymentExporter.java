@@ -0,0 +1,193 @@
+package com.postgres;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/*
+ * Streams payment_service.payments out as NDJSON or CSV for reconciliation. Rows are read through
+ * a forward-only server side cursor (fetch size rows at a time inside a read-only transaction) and
+ * written to the output as they arrive, no entities are created so memory stays flat whatever the
+ * size of the table. Card numbers are reduced to their last four digits and the cvc is never exported.
+ */
+@Component
+public class PaymentExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentExporter.class);
+
+    private static final String SELECT = """
+            SELECT id, correlator_id, email, payment_amount, cash_amount, reward_cash_applied,
+                   RIGHT(credit_card, 4) AS card_last4, initial_time_stamp
+            FROM payment_service.payments""";
+    private static final String CSV_HEADER =
+            "id,correlatorId,email,paymentAmount,cashAmount,rewardCashApplied,cardLast4,initialTimeStamp\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public enum Format { NDJSON, CSV }
+
+    // every filter is optional, from is inclusive and to exclusive
+    public record Filter(String email, Instant from, Instant to) {}
+
+    public PaymentExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Value("${payment.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /*
+     * Writes every matching payment to out and returns the number of rows exported. The output
+     * stream is finished but not closed.
+     */
+    public long export(Format format, Filter filter, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator json = format == Format.NDJSON ? jsonFactory.createGenerator(writer) : null;
+        if (json != null) {
+            json.setRootValueSeparator(null);
+        } else {
+            writer.write(CSV_HEADER);
+        }
+
+        List<Object> params = new ArrayList<>();
+        String sql = SELECT + where(filter, params);
+        long[] rows = {0};
+        long start = System.nanoTime();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                try {
+                    if (json != null) {
+                        writeJson(json, rs);
+                    } else {
+                        writeCsv(writer, rs);
+                    }
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, params.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        out.flush();
+        LOG.info("Exported {} payments as {} in {} ms", rows[0], format,
+                (System.nanoTime() - start) / 1_000_000);
+        return rows[0];
+    }
+
+    private String where(Filter filter, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.email() != null) {
+            conditions.add("email = ?");
+            params.add(filter.email());
+        }
+        if (filter.from() != null) {
+            conditions.add("initial_time_stamp >= ?");
+            params.add(Timestamp.from(filter.from()));
+        }
+        if (filter.to() != null) {
+            conditions.add("initial_time_stamp < ?");
+            params.add(Timestamp.from(filter.to()));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private void writeJson(JsonGenerator json, ResultSet rs) throws IOException, SQLException {
+        json.writeStartObject();
+        json.writeNumberField("id", rs.getLong(1));
+        long correlatorId = rs.getLong(2);
+        if (rs.wasNull()) {
+            json.writeNullField("correlatorId");
+        } else {
+            json.writeNumberField("correlatorId", correlatorId);
+        }
+        json.writeStringField("email", rs.getString(3));
+        json.writeNumberField("paymentAmount", rs.getBigDecimal(4));
+        json.writeNumberField("cashAmount", rs.getBigDecimal(5));
+        json.writeNumberField("rewardCashApplied", rs.getBigDecimal(6));
+        json.writeStringField("cardLast4", rs.getString(7));
+        json.writeStringField("initialTimeStamp", timestamp(rs));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(Writer writer, ResultSet rs) throws IOException, SQLException {
+        writer.write(Long.toString(rs.getLong(1)));
+        writer.write(',');
+        long correlatorId = rs.getLong(2);
+        if (!rs.wasNull()) {
+            writer.write(Long.toString(correlatorId));
+        }
+        writer.write(',');
+        writeCsvText(writer, rs.getString(3));
+        writer.write(',');
+        writer.write(plain(rs, 4));
+        writer.write(',');
+        writer.write(plain(rs, 5));
+        writer.write(',');
+        writer.write(plain(rs, 6));
+        writer.write(',');
+        writeCsvText(writer, rs.getString(7));
+        writer.write(',');
+        writer.write(timestamp(rs));
+        writer.write('\n');
+    }
+
+    private static String plain(ResultSet rs, int column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static String timestamp(ResultSet rs) throws SQLException {
+        OffsetDateTime value = rs.getObject(8, OffsetDateTime.class);
+        return value == null ? "" : value.toString();
+    }
+
+    private static void writeCsvText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,123 @@
+package com.postgres;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Keeps the monthly partitions of payment_service.payments (see the V8 migration) ahead of the
+ * clock and within the retention. Right after startup and then every check-interval-minutes it
+ * calls maintain_payment_partitions, which creates the current and the next months-ahead months
+ * and drops months that ended more than retention-months ago (0 keeps everything).
+ *
+ * There is no default partition, a payment for a month without one fails to insert, so
+ * months-ahead is what covers a maintainer that didn't run for a while. Instances running at the
+ * same time wait for each other on an advisory lock in the database.
+ */
+@Component
+public class PaymentPartitionMaintainer implements SmartLifecycle {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentPartitionMaintainer.class);
+
+    private static final String MAINTAIN = "SELECT created, dropped FROM payment_service.maintain_payment_partitions(?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final long intervalMs;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread maintainerThread;
+
+    public PaymentPartitionMaintainer(DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Value("${payment.partitions.maintenance.enabled:true}") boolean enabled,
+            @Value("${payment.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${payment.partitions.retention-months:0}") int retentionMonths,
+            @Value("${payment.partitions.check-interval-minutes:360}") long checkIntervalMinutes) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.intervalMs = TimeUnit.MINUTES.toMillis(checkIntervalMinutes);
+    }
+
+    // one round of maintenance, false when it failed (logged, tried again next interval)
+    public boolean maintain() {
+        try {
+            Map<String, Object> result = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForMap(MAINTAIN, monthsAhead, retentionMonths));
+            int createdNow = ((Number) result.get("created")).intValue();
+            int droppedNow = ((Number) result.get("dropped")).intValue();
+            created.addAndGet(createdNow);
+            dropped.addAndGet(droppedNow);
+            if (createdNow > 0 || droppedNow > 0) {
+                LOG.info("Payment partitions: created {}, dropped {} (months ahead {}, retention {} months)",
+                        createdNow, droppedNow, monthsAhead, retentionMonths);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            LOG.error("Payment partition maintenance failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(created.get(), dropped.get(), failures.get());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            LOG.info("PaymentPartitionMaintainer disabled");
+            return;
+        }
+        maintainerThread = new Thread(this::run, "payment-partitions");
+        maintainerThread.setDaemon(true);
+        maintainerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (maintainerThread != null) {
+            maintainerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            maintain();
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Partitions created and dropped by this instance since startup
+    public record Stats(long created, long dropped, long failures) {}
+}
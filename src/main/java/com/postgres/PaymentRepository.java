@@ -1,8 +1,15 @@
 package com.postgres;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import com.postgres.models.Payment;
+import com.postgres.models.PaymentHistoryView;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 /*
  * NOTES: all included methods inside of JPA repository
@@ -25,4 +32,62 @@ import java.util.List;
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 	List<Payment> findByEmail(String email);
     List<Payment> findByPaymentAmount(double amount);
+
+    // payment_correlators has the partition of the row (see V8), only that one partition is read
+    @Query(value = """
+            SELECT p.*
+            FROM payment_service.payment_correlators c
+            JOIN payment_service.payments p
+              ON p.id = c.payment_id AND p.initial_time_stamp = c.initial_time_stamp
+            WHERE c.correlator_id = :correlatorId
+            """, nativeQuery = true)
+    Optional<Payment> findByCorrelatorId(@Param("correlatorId") Long correlatorId);
+
+    // 1 when this caller now holds the correlatorId (see V10), 0 when it is stored or claimed elsewhere
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO payment_service.payment_correlators AS c (correlator_id, claimed_at)
+            VALUES (:correlatorId, now())
+            ON CONFLICT (correlator_id) DO UPDATE SET claimed_at = now()
+            WHERE c.payment_id IS NULL AND c.claimed_at < now() - :staleSeconds * INTERVAL '1 second'
+            """, nativeQuery = true)
+    int claimCorrelatorId(@Param("correlatorId") Long correlatorId, @Param("staleSeconds") long staleSeconds);
+
+    @Query(value = "SELECT payment_id IS NOT NULL FROM payment_service.payment_correlators WHERE correlator_id = :correlatorId",
+            nativeQuery = true)
+    Optional<Boolean> isCorrelatorIdStored(@Param("correlatorId") Long correlatorId);
+
+    // gives up a claim whose payment was never stored, a stored payment keeps its correlatorId
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM payment_service.payment_correlators WHERE correlator_id = :correlatorId AND payment_id IS NULL",
+            nativeQuery = true)
+    int releaseCorrelatorId(@Param("correlatorId") Long correlatorId);
+
+    // Payment history, newest first, served from payments_email_time_id_idx (V7)
+    @Query(value = """
+            SELECT id, correlator_id AS correlatorId, payment_amount AS paymentAmount,
+                   cash_amount AS cashAmount, reward_cash_applied AS rewardCashApplied,
+                   initial_time_stamp AS initialTimeStamp
+            FROM payment_service.payments
+            WHERE email = :email
+            ORDER BY initial_time_stamp DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<PaymentHistoryView> findHistoryFirstPage(@Param("email") String email, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT id, correlator_id AS correlatorId, payment_amount AS paymentAmount,
+                   cash_amount AS cashAmount, reward_cash_applied AS rewardCashApplied,
+                   initial_time_stamp AS initialTimeStamp
+            FROM payment_service.payments
+            WHERE email = :email
+              AND (initial_time_stamp, id) < (:afterTimeStamp, :afterId)
+            ORDER BY initial_time_stamp DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<PaymentHistoryView> findHistoryPageAfter(@Param("email") String email,
+            @Param("afterTimeStamp") Instant afterTimeStamp, @Param("afterId") Long afterId,
+            @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.postgres;
+
+import java.util.Optional;
+import org.springframework.data.repository.Repository;
+import com.postgres.models.PaymentSummary;
+
+// read only, the summaries are written by the triggers of the V9 migration
+public interface PaymentSummaryRepository extends Repository<PaymentSummary, String> {
+    Optional<PaymentSummary> findById(String email);
+}
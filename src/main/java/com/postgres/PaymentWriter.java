@@ -0,0 +1,224 @@
+package com.postgres;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.postgres.models.Payment;
+
+/*
+ * Group commit for payment_service.payments. Concurrent callers hand their Payment to a bounded
+ * queue, a single writer thread collects them for up to max-wait-ms or max-batch-size rows and
+ * inserts the whole group as one JDBC batch in one transaction. Every caller gets its own Payment
+ * back, with the generated id when the insert committed and without one when it failed.
+ *
+ * If a batch fails it is retried row by row so one bad payment doesn't fail its neighbours.
+ * When the queue is full the caller inserts its payment itself instead of waiting.
+ *
+ * Every transaction is bounded by transaction-timeout-seconds and callers wait longer than that
+ * (caller-timeout-ms). A caller that still gives up gets a copy of its payment without an id, the
+ * queued Payment stays with the writer thread, which may be assigning its id at that moment.
+ */
+@Component
+public class PaymentWriter implements SmartLifecycle {
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentWriter.class);
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingPayment> queue;
+
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long callerTimeoutMs;
+
+    private final AtomicLong inserts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public PaymentWriter(PaymentRepository paymentRepository, PlatformTransactionManager transactionManager,
+            @Value("${payment.writer.queue-capacity:10000}") int queueCapacity,
+            @Value("${payment.writer.max-batch-size:50}") int maxBatchSize,
+            @Value("${payment.writer.max-wait-ms:5}") long maxWaitMs,
+            @Value("${payment.writer.caller-timeout-ms:10000}") long callerTimeoutMs,
+            @Value("${payment.writer.transaction-timeout-seconds:5}") int transactionTimeoutSeconds) {
+        if (callerTimeoutMs <= TimeUnit.SECONDS.toMillis(transactionTimeoutSeconds)) {
+            throw new IllegalArgumentException("payment.writer.caller-timeout-ms (" + callerTimeoutMs
+                    + ") must be longer than payment.writer.transaction-timeout-seconds (" + transactionTimeoutSeconds + ")");
+        }
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(transactionTimeoutSeconds);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.callerTimeoutMs = callerTimeoutMs;
+    }
+
+    /*
+     * Queues the payment for the next group commit and waits for the outcome. The returned Payment
+     * has an id when it was stored. When the wait ends without an outcome the returned copy has no
+     * id, the row may still be committed later and is then found by its correlatorId on a retry.
+     */
+    public Payment write(Payment payment) {
+        PendingPayment pending = new PendingPayment(payment, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            overflows.incrementAndGet();
+            return insertOne(payment);
+        }
+
+        try {
+            return pending.result().get(callerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.error("Timed out after {} ms waiting for the payment group commit", callerTimeoutMs);
+            return unsaved(payment);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return unsaved(payment);
+        } catch (Exception e) {
+            LOG.error("Payment group commit failed: {}", e.getMessage());
+            return unsaved(payment);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(inserts.get(), failures.get(), commits.get(), overflows.get(),
+                flushNanos.get(), queue.size());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::run, "payment-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        LOG.info("PaymentWriter started with batches of up to {} rows every {} ms", maxBatchSize,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(callerTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything still queued is written before the DataSource goes away
+        List<PendingPayment> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        LOG.info("PaymentWriter stopped: {}", getStats());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<PendingPayment> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || queue.drainTo(batch, maxBatchSize - batch.size()) == 0
+                            && !pollInto(batch, remaining)) {
+                        break;
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // stop() drains the queue
+            } finally {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean pollInto(List<PendingPayment> batch, long timeoutNanos) throws InterruptedException {
+        PendingPayment next = queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+        if (next == null) {
+            return false;
+        }
+        batch.add(next);
+        return true;
+    }
+
+    private void flush(List<PendingPayment> batch) {
+        long start = System.nanoTime();
+        List<Payment> payments = new ArrayList<>(batch.size());
+        for (PendingPayment pending : batch) {
+            payments.add(pending.payment());
+        }
+
+        try {
+            // ids come from the pooled sequence, the rows go out as one JDBC batch on commit
+            transactionTemplate.executeWithoutResult(status -> paymentRepository.saveAll(payments));
+            commits.incrementAndGet();
+            inserts.addAndGet(payments.size());
+            batch.forEach(pending -> pending.result().complete(pending.payment()));
+        } catch (RuntimeException e) {
+            LOG.warn("Batch insert of {} payments failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingPayment pending : batch) {
+                pending.payment().setId(null);
+                pending.result().complete(insertOne(pending.payment()));
+            }
+        } finally {
+            flushNanos.addAndGet(System.nanoTime() - start);
+            batch.clear();
+        }
+    }
+
+    private Payment insertOne(Payment payment) {
+        try {
+            Payment saved = transactionTemplate.execute(status -> paymentRepository.save(payment));
+            commits.incrementAndGet();
+            inserts.incrementAndGet();
+            return saved;
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            LOG.error("Failed to insert payment: {}", e.getMessage());
+            payment.setId(null);
+            return payment;
+        }
+    }
+
+    // a detached copy without an id, never the queued Payment the writer thread may still be saving
+    private static Payment unsaved(Payment payment) {
+        Payment copy = new Payment(payment.getPaymentAmount(), payment.getCashAmount(),
+                payment.getRewardCashApplied(), payment.getEmail(), payment.getCreditCard(), payment.getCvc(),
+                payment.getCorrelatorId());
+        copy.setInitialTimeStamp(payment.getInitialTimeStamp());
+        return copy;
+    }
+
+    private record PendingPayment(Payment payment, CompletableFuture<Payment> result) {}
+
+    // Counters since startup, inserts per second is the change in inserts over time
+    public record Stats(long inserts, long failures, long commits, long overflows, long flushNanos,
+            int queued) {}
+}
@@ -1,9 +1,12 @@
 package com.postgres;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.cache.PaymentSummaryCache;
 import com.postgres.models.Payment;
-import jakarta.transaction.Transactional;
+import com.postgres.models.PaymentHistoryView;
+import com.postgres.models.PaymentSummary;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +16,21 @@ public class PostgresService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentWriter paymentWriter;
+
+    @Autowired
+    private PaymentSummaryRepository paymentSummaryRepository;
+
+    @Autowired
+    private PaymentSummaryCache paymentSummaryCache;
+
+    @Value("${payment.writer.group-commit.enabled:true}")
+    private boolean groupCommit;
+
+    @Value("${payment.correlator-claims.stale-seconds:300}")
+    private long claimStaleSeconds;
+
     public List<Payment> findAll() {
         return paymentRepository.findAll();
     }
@@ -21,14 +39,21 @@ public class PostgresService {
         return paymentRepository.findById(id);
     }
 
-    // save includes creating and updating
-    @Transactional
+    // save includes creating and updating, new payments are inserted through the group commit
+    // writer, the returned payment has no id when the insert failed
     public Payment save(Payment payment) {
-        return paymentRepository.save(payment);
+        Payment saved = groupCommit && payment.getId() == null ? paymentWriter.write(payment)
+                : paymentRepository.save(payment);
+        // the insert updated the customer's summary in the database
+        paymentSummaryCache.invalidate(payment.getEmail());
+        return saved;
     }
 
     public void deleteById(Long id) {
+        Optional<Payment> payment = paymentRepository.findById(id);
         paymentRepository.deleteById(id);
+        // the delete took the payment out of its customer's summary in the database
+        payment.ifPresent(deleted -> paymentSummaryCache.invalidate(deleted.getEmail()));
     }
 
     public List<Payment> findByPaymentAmount(double amount) {
@@ -38,4 +63,60 @@ public class PostgresService {
     public List<Payment> findByEmail(String email) {
         return paymentRepository.findByEmail(email);
     }
+
+    public Optional<Payment> findByCorrelatorId(Long correlatorId) {
+        return paymentRepository.findByCorrelatorId(correlatorId);
+    }
+
+    /*
+     * Claims a correlatorId before the payment redeems anything, one insert that a single request
+     * across all instances wins. A claim older than stale-seconds without a payment was left by
+     * an instance that died and is taken over.
+     */
+    public CorrelatorClaim claimCorrelatorId(Long correlatorId) {
+        if (paymentRepository.claimCorrelatorId(correlatorId, claimStaleSeconds) == 1) {
+            return CorrelatorClaim.CLAIMED;
+        }
+        // a claim released in between reads as still in progress, the retry after it can claim
+        return paymentRepository.isCorrelatorIdStored(correlatorId)
+                .map(stored -> stored ? CorrelatorClaim.STORED : CorrelatorClaim.IN_PROGRESS)
+                .orElse(CorrelatorClaim.IN_PROGRESS);
+    }
+
+    // for a claimed payment that wasn't stored, so a retry can process it
+    public void releaseCorrelatorId(Long correlatorId) {
+        paymentRepository.releaseCorrelatorId(correlatorId);
+    }
+
+    /*
+     * One page of a customer's payments, newest first. Pass the nextCursor of the previous page
+     * to continue, a null cursor starts at the newest payment.
+     */
+    public PaymentHistoryPage findPaymentHistory(String email, String cursor, int pageSize) {
+        // one extra row tells us whether there is a next page
+        List<PaymentHistoryView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = paymentRepository.findHistoryFirstPage(email, pageSize + 1);
+        } else {
+            PaymentCursor after = PaymentCursor.decode(cursor);
+            rows = paymentRepository.findHistoryPageAfter(email, after.initialTimeStamp(), after.id(),
+                    pageSize + 1);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new PaymentHistoryPage(rows, null);
+        }
+        List<PaymentHistoryView> page = rows.subList(0, pageSize);
+        PaymentHistoryView last = page.get(pageSize - 1);
+        return new PaymentHistoryPage(page,
+                new PaymentCursor(last.getInitialTimeStamp(), last.getId()).encode());
+    }
+
+    // a customer's totals, one primary key lookup (or none when cached) whatever their payment count
+    public PaymentSummary findPaymentSummary(String email) {
+        return paymentSummaryCache.get(email, key -> paymentSummaryRepository.findById(key)
+                .orElseGet(() -> PaymentSummary.empty(key)));
+    }
+
+    public record PaymentHistoryPage(List<PaymentHistoryView> payments, String nextCursor) {}
 }
@@ -0,0 +1,100 @@
+package com.postgres;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import com.postgres.models.Payment;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+/*
+ * Payment rows for the reactive stack over R2DBC (spring.r2dbc.*). Each insert is one
+ * auto-committed statement, the id comes from the column default (the payments_seq sequence, see
+ * the V5 migration) so it never collides with the blocks Hibernate allocates.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactivePaymentStore {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactivePaymentStore.class);
+
+    private static final String INSERT = """
+            INSERT INTO payment_service.payments
+                (payment_amount, cash_amount, reward_cash_applied, email, credit_card, cvc, initial_time_stamp, correlator_id)
+            VALUES (:paymentAmount, :cashAmount, :rewardCashApplied, :email, :creditCard, :cvc,
+                :initialTimeStamp, :correlatorId)
+            RETURNING id
+            """;
+
+    // same statements as PaymentRepository, see PostgresService.claimCorrelatorId
+    private static final String CLAIM = """
+            INSERT INTO payment_service.payment_correlators AS c (correlator_id, claimed_at)
+            VALUES (:correlatorId, now())
+            ON CONFLICT (correlator_id) DO UPDATE SET claimed_at = now()
+            WHERE c.payment_id IS NULL AND c.claimed_at < now() - :staleSeconds * INTERVAL '1 second'
+            """;
+    private static final String IS_STORED =
+            "SELECT payment_id IS NOT NULL AS stored FROM payment_service.payment_correlators WHERE correlator_id = :correlatorId";
+    private static final String RELEASE =
+            "DELETE FROM payment_service.payment_correlators WHERE correlator_id = :correlatorId AND payment_id IS NULL";
+
+    private final DatabaseClient databaseClient;
+    private final long claimStaleSeconds;
+
+    public ReactivePaymentStore(ConnectionFactory connectionFactory,
+            @Value("${payment.correlator-claims.stale-seconds:300}") long claimStaleSeconds) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        this.claimStaleSeconds = claimStaleSeconds;
+    }
+
+    // claims a correlatorId before the payment redeems anything, like PostgresService.claimCorrelatorId
+    public Mono<CorrelatorClaim> claimCorrelatorId(Long correlatorId) {
+        return databaseClient.sql(CLAIM)
+                .bind("correlatorId", correlatorId)
+                .bind("staleSeconds", claimStaleSeconds)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(claimed -> claimed == 1 ? Mono.just(CorrelatorClaim.CLAIMED)
+                        : databaseClient.sql(IS_STORED)
+                                .bind("correlatorId", correlatorId)
+                                .map(row -> Boolean.TRUE.equals(row.get("stored", Boolean.class))
+                                        ? CorrelatorClaim.STORED : CorrelatorClaim.IN_PROGRESS)
+                                .first()
+                                .defaultIfEmpty(CorrelatorClaim.IN_PROGRESS));
+    }
+
+    // for a claimed payment that wasn't stored, so a retry can process it
+    public Mono<Void> releaseCorrelatorId(Long correlatorId) {
+        return databaseClient.sql(RELEASE)
+                .bind("correlatorId", correlatorId)
+                .then();
+    }
+
+    // the payment with its generated id, or without one when the insert failed, like PaymentWriter.write
+    public Mono<Payment> insert(Payment payment) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(INSERT)
+                .bind("paymentAmount", payment.getPaymentAmount())
+                .bind("cashAmount", payment.getCashAmount())
+                .bind("rewardCashApplied", payment.getRewardCashApplied())
+                .bind("email", payment.getEmail())
+                .bind("creditCard", payment.getCreditCard())
+                .bind("cvc", payment.getCvc())
+                .bind("initialTimeStamp", payment.getInitialTimeStamp());
+        insert = payment.getCorrelatorId() != null ? insert.bind("correlatorId", payment.getCorrelatorId())
+                : insert.bindNull("correlatorId", Long.class);
+
+        return insert.map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    payment.setId(id);
+                    return payment;
+                })
+                .onErrorResume(e -> {
+                    LOG.error("Failed to insert payment: {}", e.getMessage());
+                    return Mono.just(payment);
+                });
+    }
+}
@@ -5,15 +5,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Instant;
 
 @Entity
 @Table(name = "payments", schema = "payment_service")
 public class Payment {
+    // pooled sequence (see V5 migration) so inserts can be batched, IDENTITY disables batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", schema = "payment_service",
+            allocationSize = 50)
     private Long id;
 
     @Column(name = "payment_amount", nullable = false)
@@ -34,8 +38,13 @@ public class Payment {
     @Column(name = "cvc", nullable = false)
     private String cvc;
 
+    // partition key of the table (see V8 migration), timestamp with time zone
     @Column(name = "initial_time_stamp", nullable = false)
-    private String initialTimeStamp;
+    private Instant initialTimeStamp;
+
+    // unique through payment_correlators, a partitioned table can't have a unique index on it alone
+    @Column(name = "correlator_id")
+    private Long correlatorId;
 
     // for JPA only, no use
     public Payment() {}
@@ -47,7 +56,12 @@ public class Payment {
         this.email = email;
         this.creditCard = creditCard;
         this.cvc = cvc;
-        this.initialTimeStamp = LocalDateTime.now().toString();
+        this.initialTimeStamp = Instant.now();
+    }
+
+    public Payment(BigDecimal paymentAmount, BigDecimal cashAmount, BigDecimal rewardCashApplied, String email, String creditCard, String cvc, Long correlatorId) {
+        this(paymentAmount, cashAmount, rewardCashApplied, email, creditCard, cvc);
+        this.correlatorId = correlatorId;
     }
 
     public Long getId() {
@@ -106,11 +120,19 @@ public class Payment {
         this.cvc = cvc;
     }
 
-    public String getInitialTimeStamp() {
+    public Instant getInitialTimeStamp() {
         return initialTimeStamp;
     }
 
-    public void setInitialTimeStamp(String timeStamp) {
+    public void setInitialTimeStamp(Instant timeStamp) {
         this.initialTimeStamp = timeStamp;
     }
+
+    public Long getCorrelatorId() {
+        return correlatorId;
+    }
+
+    public void setCorrelatorId(Long correlatorId) {
+        this.correlatorId = correlatorId;
+    }
 }
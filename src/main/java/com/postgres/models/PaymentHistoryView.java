@@ -0,0 +1,22 @@
+package com.postgres.models;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/*
+ * Projection of a payments row for the history API, only the columns callers need and never the
+ * card details
+ */
+public interface PaymentHistoryView {
+    Long getId();
+
+    Long getCorrelatorId();
+
+    BigDecimal getPaymentAmount();
+
+    BigDecimal getCashAmount();
+
+    BigDecimal getRewardCashApplied();
+
+    Instant getInitialTimeStamp();
+}
@@ -0,0 +1,83 @@
+package com.postgres.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import org.hibernate.annotations.Immutable;
+
+/*
+ * A customer's totals over all their payments, one row per email kept up to date by triggers on
+ * payments (see V9 migration). Read only, the service never writes it.
+ */
+@Entity
+@Immutable
+@Table(name = "payment_customer_summaries", schema = "payment_service")
+public class PaymentSummary {
+    @Id
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "total_paid", nullable = false)
+    private BigDecimal totalPaid;
+
+    @Column(name = "cash_paid", nullable = false)
+    private BigDecimal cashPaid;
+
+    @Column(name = "reward_cash_applied", nullable = false)
+    private BigDecimal rewardCashApplied;
+
+    @Column(name = "first_payment_at")
+    private Instant firstPaymentAt;
+
+    @Column(name = "last_payment_at")
+    private Instant lastPaymentAt;
+
+    // for JPA only, no use
+    protected PaymentSummary() {}
+
+    private PaymentSummary(String email) {
+        this.email = email;
+        this.totalPaid = BigDecimal.ZERO;
+        this.cashPaid = BigDecimal.ZERO;
+        this.rewardCashApplied = BigDecimal.ZERO;
+    }
+
+    // totals of a customer without payments
+    public static PaymentSummary empty(String email) {
+        return new PaymentSummary(email);
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public BigDecimal getTotalPaid() {
+        return totalPaid;
+    }
+
+    public BigDecimal getCashPaid() {
+        return cashPaid;
+    }
+
+    public BigDecimal getRewardCashApplied() {
+        return rewardCashApplied;
+    }
+
+    public Instant getFirstPaymentAt() {
+        return firstPaymentAt;
+    }
+
+    public Instant getLastPaymentAt() {
+        return lastPaymentAt;
+    }
+}
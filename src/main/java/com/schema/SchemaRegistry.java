@@ -0,0 +1,128 @@
+package com.schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.loader.SchemaClient;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import com.SchemaService;
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Compiles the ICD topic schemas once and keeps the compiled Schema objects around so that
+ * validating a topic is a map lookup plus validate(). Schemas for the topics listed in
+ * schema.registry.preload are compiled at startup, any other topic is compiled on first use.
+ */
+@Service
+public class SchemaRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaRegistry.class);
+
+    private final ResourceLoader resourceLoader;
+
+    // one client for every $ref resolution, it holds no per-request state
+    private final SchemaClient schemaClient = new ClasspathSchemaClient();
+
+    // swapped as a whole on reload so readers never see a half built registry
+    private volatile Map<String, Schema> schemas = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong compilations = new AtomicLong();
+    private final AtomicLong compileTimeNanos = new AtomicLong();
+
+    @Value("${schema.registry.preload:PaymentRequest}")
+    private String[] preloadTopics = {"PaymentRequest"};
+
+    public SchemaRegistry(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String topicName : preloadTopics) {
+            try {
+                getSchema(topicName);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not precompile schema for topic {}: {}", topicName, e.getMessage());
+            }
+        }
+        LOG.info("SchemaRegistry initialized with precompiled topics: {}", schemas.keySet());
+    }
+
+    /*
+     * Returns the compiled schema for a topic, compiling and caching it on the first lookup.
+     * Throws if the ICD has no schema for the topic.
+     */
+    public Schema getSchema(String topicName) {
+        Map<String, Schema> current = schemas;
+        Schema schema = current.get(topicName);
+        if (schema != null) {
+            hits.incrementAndGet();
+            return schema;
+        }
+        misses.incrementAndGet();
+        return current.computeIfAbsent(topicName, this::compile);
+    }
+
+    /*
+     * Recompiles every topic currently in the registry and swaps the new set in atomically.
+     * If any schema fails to compile the existing registry is left untouched.
+     */
+    public synchronized void reload() {
+        List<String> topics = List.copyOf(schemas.keySet());
+        Map<String, Schema> reloaded = new ConcurrentHashMap<>();
+        for (String topicName : topics) {
+            reloaded.put(topicName, compile(topicName));
+        }
+        schemas = reloaded;
+        LOG.info("SchemaRegistry reloaded {} topic schemas", topics.size());
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), compilations.get(),
+                compileTimeNanos.get(), schemas.size());
+    }
+
+    private Schema compile(String topicName) {
+        long start = System.nanoTime();
+        String schemaPath = SchemaService.getPathFor(topicName);
+        Resource resource = resourceLoader.getResource("classpath:" + schemaPath);
+        if (!resource.exists()) {
+            throw new IllegalArgumentException("No schema found for topic: " + topicName);
+        }
+
+        try (InputStream schemaStream = resource.getInputStream()) {
+            JSONObject rawSchema = new JSONObject(new JSONTokener(schemaStream));
+            Schema schema = SchemaLoader.builder()
+                .schemaJson(rawSchema)
+                .resolutionScope("classpath:/json-schema/") // base URI for resolving $ref
+                .schemaClient(schemaClient)
+                .build()
+                .load()
+                .build();
+
+            long elapsed = System.nanoTime() - start;
+            compilations.incrementAndGet();
+            compileTimeNanos.addAndGet(elapsed);
+            LOG.info("Compiled schema for topic {} in {} ms", topicName, elapsed / 1_000_000);
+            return schema;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read schema for topic: " + topicName, e);
+        }
+    }
+
+    // Snapshot of the registry counters
+    public record Stats(long hits, long misses, long compilations, long compileTimeNanos, int size) {}
+}
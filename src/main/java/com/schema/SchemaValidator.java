@@ -11,26 +11,48 @@ import org.everit.json.schema.ValidationException;
 import org.everit.json.schema.loader.SchemaLoader;
 import org.json.JSONObject;
 import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SchemaValidator {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaValidator.class);
 
     private final ResourceLoader resourceLoader;
+    private final SchemaRegistry schemaRegistry;
 
-    public SchemaValidator(ResourceLoader resourceLoader) {
+    public SchemaValidator(ResourceLoader resourceLoader, SchemaRegistry schemaRegistry) {
         this.resourceLoader = resourceLoader;
+        this.schemaRegistry = schemaRegistry;
     }
 
+    /*
+     * Validates a topic against its precompiled schema from the SchemaRegistry
+     */
+    public boolean validateJson(String topicName, JSONObject jsonNode) {
+        try {
+            schemaRegistry.getSchema(topicName).validate(jsonNode);
+            return true;
+        } catch (ValidationException e) {
+            logErrors(topicName, e);
+            return false;
+        } catch (IllegalArgumentException e) {
+            LOG.warn(e.getMessage());
+            return false;
+        }
+    }
+
+    // Compiles the schema from the stream on every call, prefer validateJson(topicName, jsonNode)
     public boolean validateJson(InputStream schemaStream, JSONObject jsonNode) {
         try {
             JSONObject rawSchema = new JSONObject(new JSONTokener(schemaStream));
 
             // Set the base URL to the folder containing the schemas
             URL baseUrl = getClass().getClassLoader().getResource("json-schema");
-            System.out.println("Base URL: " + baseUrl);
+            LOG.debug("Base URL: {}", baseUrl);
             if (baseUrl == null) {
                 throw new RuntimeException("Could not locate json-schema folder in classpath");
             }
@@ -46,17 +68,22 @@ public class SchemaValidator {
             schema.validate(jsonNode);
             return true;
         } catch (ValidationException e) {
-            System.out.println("Validation failed");
-            List<String> errors = collectErrors(e);
-            errors.forEach(err -> System.out.println(" - " + err));
+            logErrors("unknown", e);
             return false;
         }
     }
 
+    private void logErrors(String topicName, ValidationException e) {
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("Validation failed for {}: {}", topicName, collectErrors(e));
+        }
+    }
+
     private List<String> collectErrors(ValidationException e) {
         List<String> errors = new ArrayList<>();
         if (e.getCausingExceptions().isEmpty()) {
-            errors.add(e.getMessage());
+            // the message can contain the rejected value (card number, cvc), log where and what failed
+            errors.add(e.getPointerToViolation() + " " + e.getKeyword());
         } else {
             for (ValidationException cause : e.getCausingExceptions()) {
                 errors.addAll(collectErrors(cause));
@@ -69,12 +96,12 @@ public class SchemaValidator {
         try {
             Resource resource = resourceLoader.getResource("classpath:" + schemaPath);
             if (!resource.exists()) {
-                System.out.println("Schema not found: " + schemaPath);
+                LOG.warn("Schema not found: {}", schemaPath);
                 return null;
             }
             return resource.getInputStream();
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.error("Failed to read schema {}", schemaPath, e);
             return null;
         }
     }
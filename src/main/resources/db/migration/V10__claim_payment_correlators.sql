@@ -0,0 +1,33 @@
+-- A PaymentRequest claims its correlatorId in payment_correlators before it redeems any reward
+-- points, so of two instances processing the same correlatorId only one redeems and stores it.
+-- Until the payment is inserted the claim has no payment_id, the V8 trigger fills it in.
+--
+-- A claim whose payment was never stored is deleted by the instance that made it. One left behind
+-- by an instance that died is taken over once claimed_at is older than
+-- payment.correlator-claims.stale-seconds, see PostgresService.claimCorrelatorId.
+ALTER TABLE payment_service.payment_correlators
+    ALTER COLUMN payment_id DROP NOT NULL,
+    ALTER COLUMN initial_time_stamp DROP NOT NULL,
+    ADD COLUMN claimed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+
+-- completes this request's claim, a correlatorId that already has a payment stays a unique violation
+CREATE OR REPLACE FUNCTION payment_service.register_payment_correlator() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    registered INTEGER;
+BEGIN
+    IF NEW.correlator_id IS NOT NULL THEN
+        INSERT INTO payment_service.payment_correlators AS c (correlator_id, payment_id, initial_time_stamp)
+        VALUES (NEW.correlator_id, NEW.id, NEW.initial_time_stamp)
+        ON CONFLICT (correlator_id) DO UPDATE
+            SET payment_id = EXCLUDED.payment_id, initial_time_stamp = EXCLUDED.initial_time_stamp
+            WHERE c.payment_id IS NULL;
+        GET DIAGNOSTICS registered = ROW_COUNT;
+        IF registered = 0 THEN
+            RAISE EXCEPTION 'duplicate key value violates unique constraint "payment_correlators_pkey"'
+                USING ERRCODE = 'unique_violation',
+                      DETAIL = format('Key (correlator_id)=(%s) already exists.', NEW.correlator_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END $$;
@@ -0,0 +1,11 @@
+-- Sequence handing out ids in blocks of 50 so Hibernate can batch payment inserts.
+-- Hibernate uses the pooled-lo optimizer (value returned is the low end of the block), which
+-- keeps ids unique alongside plain INSERTs that take nextval() from the column default.
+CREATE SEQUENCE IF NOT EXISTS payment_service.payments_seq INCREMENT BY 50;
+
+SELECT setval('payment_service.payments_seq',
+    (SELECT COALESCE(MAX(id), 0) + 1 FROM payment_service.payments), false);
+
+ALTER TABLE payment_service.payments ALTER COLUMN id SET DEFAULT nextval('payment_service.payments_seq');
+ALTER TABLE payment_service.payments ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE payment_service.payments_seq OWNED BY payment_service.payments.id;
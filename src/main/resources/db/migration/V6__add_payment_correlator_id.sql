@@ -0,0 +1,6 @@
+-- correlatorId of the PaymentRequest that created the row, retries of the same request are
+-- answered from the existing row instead of creating a duplicate payment
+ALTER TABLE payment_service.payments ADD COLUMN IF NOT EXISTS correlator_id BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS payments_correlator_id_key
+    ON payment_service.payments (correlator_id);
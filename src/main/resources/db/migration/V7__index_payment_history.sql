@@ -0,0 +1,4 @@
+-- Seek index for the payment history API, pages are read newest first per email using
+-- (initial_time_stamp, id) < (cursor) so any page depth is a single index range scan
+CREATE INDEX IF NOT EXISTS payments_email_time_id_idx
+    ON payment_service.payments (email, initial_time_stamp DESC, id DESC);
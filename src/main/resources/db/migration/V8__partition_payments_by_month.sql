@@ -0,0 +1,138 @@
+-- payments becomes a table range partitioned by month of initial_time_stamp (UTC months, named
+-- payments_YYYY_MM). Time range queries only touch the months they cover and old months are
+-- dropped as a whole table instead of being deleted row by row.
+--
+-- A partitioned table can only enforce uniqueness on keys that include the partition key, so
+--   * the primary key becomes (id, initial_time_stamp), ids still come from payments_seq
+--   * correlatorIds are kept unique in payment_correlators, filled by a trigger on insert. A
+--     retried PaymentRequest fails its insert on that primary key as it did on
+--     payments_correlator_id_key, and finds its payment there in one index lookup.
+--
+-- There is no default partition, it would have to be scanned whenever a month is added and it
+-- stops the planner from reading partitions in order for the newest first history pages.
+-- PaymentPartitionMaintainer keeps payment.partitions.months-ahead months created instead.
+
+-- the old table goes away at the end, keep the sequence and free the index names
+ALTER SEQUENCE payment_service.payments_seq OWNED BY NONE;
+ALTER TABLE payment_service.payments RENAME TO payments_unpartitioned;
+ALTER TABLE payment_service.payments_unpartitioned RENAME CONSTRAINT payments_pkey TO payments_unpartitioned_pkey;
+DROP INDEX IF EXISTS payment_service.payments_correlator_id_key;
+DROP INDEX IF EXISTS payment_service.payments_email_time_id_idx;
+
+CREATE TABLE payment_service.payments (
+    id BIGINT NOT NULL DEFAULT nextval('payment_service.payments_seq'),
+    email VARCHAR(50) NOT NULL,
+    payment_amount DECIMAL(5,2) CHECK (payment_amount >= 0),
+    cash_amount DECIMAL(5,2) CHECK (cash_amount >= 0),
+    reward_cash_applied DECIMAL(5,2) CHECK (reward_cash_applied >= 0),
+    credit_card VARCHAR(19) CHECK (credit_card ~ '^[0-9]{13,19}$'),
+    cvc VARCHAR(4) CHECK (cvc ~ '^[0-9]{3,4}$'),
+    initial_time_stamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    correlator_id BIGINT,
+    PRIMARY KEY (id, initial_time_stamp)
+) PARTITION BY RANGE (initial_time_stamp);
+
+ALTER SEQUENCE payment_service.payments_seq OWNED BY payment_service.payments.id;
+
+CREATE TABLE payment_service.payment_correlators (
+    correlator_id BIGINT PRIMARY KEY,
+    payment_id BIGINT NOT NULL,
+    initial_time_stamp TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE FUNCTION payment_service.register_payment_correlator() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF NEW.correlator_id IS NOT NULL THEN
+        INSERT INTO payment_service.payment_correlators (correlator_id, payment_id, initial_time_stamp)
+        VALUES (NEW.correlator_id, NEW.id, NEW.initial_time_stamp);
+    END IF;
+    RETURN NULL;
+END $$;
+
+CREATE TRIGGER payments_register_correlator
+    AFTER INSERT ON payment_service.payments
+    FOR EACH ROW EXECUTE FUNCTION payment_service.register_payment_correlator();
+
+-- partition for the UTC month containing month_start, returns false when it already exists
+CREATE FUNCTION payment_service.create_payment_partition(month_start TIMESTAMP) RETURNS BOOLEAN
+LANGUAGE plpgsql AS $$
+DECLARE
+    first_day TIMESTAMP := date_trunc('month', month_start);
+    partition_name TEXT := 'payments_' || to_char(first_day, 'YYYY_MM');
+BEGIN
+    IF to_regclass('payment_service.' || partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE payment_service.%I PARTITION OF payment_service.payments FOR VALUES FROM (%L) TO (%L)',
+        partition_name, first_day AT TIME ZONE 'UTC', (first_day + INTERVAL '1 month') AT TIME ZONE 'UTC');
+    RETURN TRUE;
+END $$;
+
+-- Creates the current and the next months_ahead months, drops months that ended more than
+-- retention_months ago (0 keeps everything). Instances serialize on an advisory lock.
+CREATE FUNCTION payment_service.maintain_payment_partitions(months_ahead INT, retention_months INT,
+        OUT created INT, OUT dropped INT)
+LANGUAGE plpgsql AS $$
+DECLARE
+    this_month TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC');
+    cutoff TIMESTAMP;
+    old_partition RECORD;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('payment_service.payments partitions'));
+    created := 0;
+    dropped := 0;
+
+    FOR i IN 0..months_ahead LOOP
+        IF payment_service.create_payment_partition(this_month + make_interval(months => i)) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+
+    IF retention_months > 0 THEN
+        cutoff := this_month - make_interval(months => retention_months);
+        FOR old_partition IN
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'payment_service.payments'::regclass
+              AND c.relname ~ '^payments_[0-9]{4}_[0-9]{2}$'
+              AND to_date(substring(c.relname FROM 10), 'YYYY_MM') + INTERVAL '1 month' <= cutoff
+        LOOP
+            EXECUTE format('DROP TABLE payment_service.%I', old_partition.relname);
+            dropped := dropped + 1;
+        END LOOP;
+        IF dropped > 0 THEN
+            DELETE FROM payment_service.payment_correlators WHERE initial_time_stamp < cutoff AT TIME ZONE 'UTC';
+        END IF;
+    END IF;
+END $$;
+
+-- every month that has payments, then the current one and three ahead
+DO $$
+DECLARE
+    month_start TIMESTAMP;
+BEGIN
+    FOR month_start IN
+        SELECT DISTINCT date_trunc('month', initial_time_stamp AT TIME ZONE 'UTC')
+        FROM payment_service.payments_unpartitioned
+    LOOP
+        PERFORM payment_service.create_payment_partition(month_start);
+    END LOOP;
+    PERFORM payment_service.maintain_payment_partitions(3, 0);
+END $$;
+
+INSERT INTO payment_service.payments
+    (id, email, payment_amount, cash_amount, reward_cash_applied, credit_card, cvc, initial_time_stamp, correlator_id)
+SELECT id, email, payment_amount, cash_amount, reward_cash_applied, credit_card, cvc, initial_time_stamp, correlator_id
+FROM payment_service.payments_unpartitioned;
+
+DROP TABLE payment_service.payments_unpartitioned;
+
+-- created on the parent, every current and future partition gets its own copy
+-- history pages per email, newest first (see V7)
+CREATE INDEX payments_email_time_id_idx
+    ON payment_service.payments (email, initial_time_stamp DESC, id DESC);
+-- time ranges within a month, rows arrive in time order so a BRIN index stays tiny
+CREATE INDEX payments_time_brin_idx
+    ON payment_service.payments USING BRIN (initial_time_stamp);
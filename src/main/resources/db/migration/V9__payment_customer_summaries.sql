@@ -0,0 +1,73 @@
+-- Running totals per customer, kept by statement triggers on payments in the same transaction as
+-- the insert, so reading a customer's totals is one primary key lookup however many payments
+-- they have. A group commit of many payments does one upsert per email, in email order so
+-- concurrent writers lock the rows in the same order.
+--
+-- These are lifetime totals: dropping a month partition (retention, see V8) doesn't fire the
+-- triggers and leaves them as they are, deleting single payments subtracts them.
+CREATE TABLE payment_service.payment_customer_summaries (
+    email VARCHAR(50) PRIMARY KEY,
+    payment_count BIGINT NOT NULL,
+    total_paid NUMERIC(19,2) NOT NULL,
+    cash_paid NUMERIC(19,2) NOT NULL,
+    reward_cash_applied NUMERIC(19,2) NOT NULL,
+    first_payment_at TIMESTAMP WITH TIME ZONE,
+    last_payment_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE FUNCTION payment_service.add_payment_summaries() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO payment_service.payment_customer_summaries AS s
+        (email, payment_count, total_paid, cash_paid, reward_cash_applied, first_payment_at, last_payment_at)
+    SELECT email, count(*), COALESCE(sum(payment_amount), 0), COALESCE(sum(cash_amount), 0),
+           COALESCE(sum(reward_cash_applied), 0), min(initial_time_stamp), max(initial_time_stamp)
+    FROM new_payments
+    GROUP BY email
+    ORDER BY email
+    ON CONFLICT (email) DO UPDATE SET
+        payment_count = s.payment_count + EXCLUDED.payment_count,
+        total_paid = s.total_paid + EXCLUDED.total_paid,
+        cash_paid = s.cash_paid + EXCLUDED.cash_paid,
+        reward_cash_applied = s.reward_cash_applied + EXCLUDED.reward_cash_applied,
+        first_payment_at = LEAST(s.first_payment_at, EXCLUDED.first_payment_at),
+        last_payment_at = GREATEST(s.last_payment_at, EXCLUDED.last_payment_at);
+    RETURN NULL;
+END $$;
+
+-- first/last payment times are left alone, they can't be recomputed without reading the history
+CREATE FUNCTION payment_service.subtract_payment_summaries() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE payment_service.payment_customer_summaries s SET
+        payment_count = s.payment_count - d.payment_count,
+        total_paid = s.total_paid - d.total_paid,
+        cash_paid = s.cash_paid - d.cash_paid,
+        reward_cash_applied = s.reward_cash_applied - d.reward_cash_applied
+    FROM (
+        SELECT email, count(*) AS payment_count, COALESCE(sum(payment_amount), 0) AS total_paid,
+               COALESCE(sum(cash_amount), 0) AS cash_paid, COALESCE(sum(reward_cash_applied), 0) AS reward_cash_applied
+        FROM old_payments
+        GROUP BY email
+    ) d
+    WHERE s.email = d.email;
+    RETURN NULL;
+END $$;
+
+CREATE TRIGGER payments_add_summaries
+    AFTER INSERT ON payment_service.payments
+    REFERENCING NEW TABLE AS new_payments
+    FOR EACH STATEMENT EXECUTE FUNCTION payment_service.add_payment_summaries();
+
+CREATE TRIGGER payments_subtract_summaries
+    AFTER DELETE ON payment_service.payments
+    REFERENCING OLD TABLE AS old_payments
+    FOR EACH STATEMENT EXECUTE FUNCTION payment_service.subtract_payment_summaries();
+
+-- totals of the payments stored so far
+INSERT INTO payment_service.payment_customer_summaries
+    (email, payment_count, total_paid, cash_paid, reward_cash_applied, first_payment_at, last_payment_at)
+SELECT email, count(*), COALESCE(sum(payment_amount), 0), COALESCE(sum(cash_amount), 0),
+       COALESCE(sum(reward_cash_applied), 0), min(initial_time_stamp), max(initial_time_stamp)
+FROM payment_service.payments
+GROUP BY email;
@@ -0,0 +1,185 @@
+package com.businessLogic;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.http.ResponseEntity;
+import com.json.JsonCodec;
+import com.schema.SchemaValidator;
+import com.topics.PaymentRequest;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+
+public class BulkLogicTest {
+    private final JsonCodec jsonCodec = new JsonCodec();
+    private BusinessLogic businessLogic;
+    private SchemaValidator schemaValidator;
+
+    @BeforeEach
+    public void setUp() {
+        businessLogic = mock(BusinessLogic.class);
+        schemaValidator = mock(SchemaValidator.class);
+        when(schemaValidator.validateJson(anyString(), any(JSONObject.class))).thenReturn(true);
+        // SUCCESSFUL response for every stored payment, correlatorId 13 takes longer than the rest
+        when(businessLogic.processPaymentRequest(any(PaymentRequest.class))).thenAnswer(invocation -> {
+            PaymentRequest request = invocation.getArgument(0);
+            if (request.getCorrelatorId() == 13) {
+                Thread.sleep(200);
+            }
+            PaymentResponse response = new PaymentResponse();
+            response.setTopicName("PaymentResponse");
+            response.setStatus(Status.SUCCESSFUL);
+            response.setCorrelatorId(request.getCorrelatorId());
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    @Test
+    @DisplayName("[BULK] Responses of a sequential stream are written in request order")
+    public void writesResponsesInOrder(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        BulkLogic bulkLogic = new BulkLogic(businessLogic, schemaValidator, jsonCodec, Runnable::run, 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bulkLogic.processPaymentRequests(body(paymentRequest(1), paymentRequest(2), paymentRequest(3)), out);
+
+        List<PaymentResponse> responses = responses(out);
+        Assertions.assertEquals(List.of(1, 2, 3), responses.stream().map(PaymentResponse::getCorrelatorId).toList());
+        responses.forEach(response -> Assertions.assertEquals(Status.SUCCESSFUL, response.getStatus()));
+    }
+
+    @Test
+    @DisplayName("[BULK] Unsupported topics and invalid PaymentRequests get a FAILED line and the stream carries on")
+    public void failedLines(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        JSONObject invalid = paymentRequest(2);
+        when(schemaValidator.validateJson(anyString(), argThat(topic -> topic.optInt("correlatorId") == 2)))
+                .thenReturn(false);
+        JSONObject unsupported = paymentRequest(3).put("topicName", "RefundRequest");
+        BulkLogic bulkLogic = new BulkLogic(businessLogic, schemaValidator, jsonCodec, Runnable::run, 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bulkLogic.processPaymentRequests(body(paymentRequest(1), invalid, unsupported, paymentRequest(4)), out);
+
+        List<PaymentResponse> responses = responses(out);
+        Assertions.assertEquals(List.of(1, 2, 3, 4), responses.stream().map(PaymentResponse::getCorrelatorId).toList());
+        Assertions.assertEquals(List.of(Status.SUCCESSFUL, Status.FAILED, Status.FAILED, Status.SUCCESSFUL),
+                responses.stream().map(PaymentResponse::getStatus).toList());
+        Assertions.assertEquals("bulk.user@example.com", responses.get(1).getEmail());
+        verify(businessLogic, times(2)).processPaymentRequest(any(PaymentRequest.class));
+    }
+
+    @Test
+    @DisplayName("[BULK] A malformed body ends the stream with a FAILED line")
+    public void stopsOnMalformedBody(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        BulkLogic bulkLogic = new BulkLogic(businessLogic, schemaValidator, jsonCodec, Runnable::run, 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String body = paymentRequest(1) + "\n{\"topicName\": \"PaymentRequest\", \"correlatorId\": \n"
+                + paymentRequest(3) + "\n";
+
+        bulkLogic.processPaymentRequests(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<PaymentResponse> responses = responses(out);
+        Assertions.assertEquals(2, responses.size());
+        Assertions.assertEquals(Status.SUCCESSFUL, responses.get(0).getStatus());
+        Assertions.assertEquals(Status.FAILED, responses.get(1).getStatus());
+        verify(businessLogic, times(1)).processPaymentRequest(any(PaymentRequest.class));
+    }
+
+    @Test
+    @DisplayName("[BULK] Reading stops once the client has gone away")
+    public void stopsWhenClientIsGone(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        BulkLogic bulkLogic = new BulkLogic(businessLogic, schemaValidator, jsonCodec, Runnable::run, 1);
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        bulkLogic.processPaymentRequests(body(paymentRequest(1), paymentRequest(2), paymentRequest(3)), closed);
+
+        verify(businessLogic, times(1)).processPaymentRequest(any(PaymentRequest.class));
+    }
+
+    @Test
+    @DisplayName("[BULK] A batch is answered in topic order whatever order its payments finish in")
+    public void batchKeepsTopicOrder(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BulkLogic bulkLogic = new BulkLogic(businessLogic, schemaValidator, jsonCodec, executor, 4);
+            JSONObject unsupported = paymentRequest(14).put("topicName", "RefundRequest");
+
+            List<PaymentResponse> responses = bulkLogic.processBatch(
+                    Arrays.asList(paymentRequest(13), null, paymentRequest(15), unsupported, paymentRequest(16)));
+
+            Assertions.assertEquals(5, responses.size());
+            Assertions.assertEquals(13, responses.get(0).getCorrelatorId());
+            Assertions.assertEquals(Status.SUCCESSFUL, responses.get(0).getStatus());
+            Assertions.assertEquals(Status.FAILED, responses.get(1).getStatus());
+            Assertions.assertEquals(15, responses.get(2).getCorrelatorId());
+            Assertions.assertEquals(14, responses.get(3).getCorrelatorId());
+            Assertions.assertEquals(Status.FAILED, responses.get(3).getStatus());
+            Assertions.assertEquals(16, responses.get(4).getCorrelatorId());
+            verify(businessLogic, times(3)).processPaymentRequest(any(PaymentRequest.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static JSONObject paymentRequest(int correlatorId) {
+        return new JSONObject()
+                .put("topicName", "PaymentRequest")
+                .put("correlatorId", correlatorId)
+                .put("paymentAmount", 20.00)
+                .put("email", "bulk.user@example.com")
+                .put("creditCard", "6011000990139424")
+                .put("cvc", "321");
+    }
+
+    private static ByteArrayInputStream body(JSONObject... topics) {
+        StringBuilder body = new StringBuilder();
+        for (JSONObject topic : topics) {
+            body.append(topic).append('\n');
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<PaymentResponse> responses(ByteArrayOutputStream out) throws IOException {
+        List<PaymentResponse> responses = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                responses.add(jsonCodec.read(line, PaymentResponse.class));
+            }
+        }
+        return responses;
+    }
+}
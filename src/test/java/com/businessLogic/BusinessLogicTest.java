@@ -2,23 +2,44 @@ package com.businessLogic;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.cache.AccountCache;
+import com.cache.IdempotencyCache;
+import com.deadline.Deadline;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamClients;
+import com.downstream.DownstreamService;
+import com.json.JsonCodec;
+import com.metrics.PipelineMetrics;
+import com.postgres.CorrelatorClaim;
 import com.postgres.PostgresService;
 import com.postgres.models.Payment;
 import com.topics.AccountInfoRequest;
@@ -39,9 +60,28 @@ public class BusinessLogicTest {
 	@Mock
      private RestClient userManagementClient; 
      @Mock
+     private DownstreamClients downstreamClients;
+     @Mock
      private AsyncLogic asyncLogic;
+     @Spy
+     private JsonCodec jsonCodec = new JsonCodec();
+     @Spy
+     private AccountCache accountCache = new AccountCache(100, 30000);
+     @Spy
+     private IdempotencyCache idempotencyCache = new IdempotencyCache(100, 60);
+     @Spy
+     private RewardsBalanceLock balanceLock = new RewardsBalanceLock();
+     private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+     @Spy
+     private PipelineMetrics metrics = new PipelineMetrics(meterRegistry);
 	private ObjectMapper objectMapper = new ObjectMapper();
 
+     @BeforeEach
+     public void setUp() {
+          // every correlatorId is new unless a test says otherwise
+          lenient().when(postgresService.claimCorrelatorId(ArgumentMatchers.anyLong())).thenReturn(CorrelatorClaim.CLAIMED);
+     }
+
 	@Test
 	@DisplayName("[BUSINESS_LOGIC] Valid PaymentRequest")
 	public void createPaymentRequest(TestInfo testInfo) {
@@ -91,6 +131,8 @@ public class BusinessLogicTest {
           RestClient.RequestBodySpec bodySpec2 = mock(RestClient.RequestBodySpec.class);
           RestClient.ResponseSpec responseSpec2 = mock(RestClient.ResponseSpec.class);
 
+          when(downstreamClients.forTopic(ArgumentMatchers.anyString())).thenReturn(new DownstreamClient(
+               DownstreamService.USER_MANAGEMENT, "http://localhost:8086/api/v1/processTopic", userManagementClient, null));
           when(userManagementClient.post()).thenReturn(uriSpec1, uriSpec2);
 
           // First call - AccountInfo
@@ -115,23 +157,17 @@ public class BusinessLogicTest {
           payment.setCreditCard(request.getCreditCard());
           payment.setCvc(request.getCvc());
           payment.setEmail(request.getEmail());
-          payment.setInitialTimeStamp("FAKE_TIME");
+          payment.setInitialTimeStamp(Instant.now());
 
           when(postgresService.save(any(Payment.class)))
 			.thenReturn(payment);
 
 		ResponseEntity<Object> httpResponse = businessLogic.processPaymentRequest(request);
 		PaymentResponse response = null;	
-		try{
-               @SuppressWarnings("null")
-               String body = httpResponse.getBody().toString();
-               if (isString(body)) {
-                    System.out.println("\n" + httpResponse.getBody());
-               } else {
-                    response = objectMapper.readValue(body, PaymentResponse.class);
-               }
-          } catch (JsonProcessingException e) {
-               e.printStackTrace();
+          if (httpResponse.getBody() instanceof PaymentResponse paymentResponse) {
+               response = paymentResponse;
+          } else {
+               System.out.println("\n" + httpResponse.getBody());
           }
 
 		assertNotNull(response);
@@ -139,13 +175,203 @@ public class BusinessLogicTest {
           Assertions.assertEquals(125.00, response.getPaymentAmount());
           Assertions.assertEquals(request.getCorrelatorId(), response.getCorrelatorId());
           Assertions.assertEquals(request.getEmail(), response.getEmail());
-	}
 
-	private boolean isString(String responseBody) {
-		// Check if the response is a simple string (you may need more specific checks depending on your use case)
-		return responseBody != null && responseBody.length() > 0 && responseBody.charAt(0) != '{';
+          // redeemed points are written through to the account cache
+          Assertions.assertEquals(0, accountCache.getCache().getIfPresent(request.getEmail()).rewardPoints());
+
+          // a retry with the same correlatorId gets the original response without new calls or rows
+          ResponseEntity<Object> retryResponse = businessLogic.processPaymentRequest(request);
+          Assertions.assertSame(response, retryResponse.getBody());
+          verify(userManagementClient, times(2)).post();
+          verify(postgresService, times(1)).save(any(Payment.class));
+
+          // each downstream call and the save are timed once
+          Assertions.assertEquals(1, stageCount("account_info", "success"));
+          Assertions.assertEquals(1, stageCount("rewards_redeem", "success"));
+          Assertions.assertEquals(1, stageCount("save", "success"));
 	}
 
+     @Test
+     @DisplayName("[BUSINESS_LOGIC] Open circuit breaker processes the payment without a discount")
+     public void circuitBreakerOpen(TestInfo testInfo) {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = new PaymentRequest();
+          request.setTopicName("PaymentRequest");
+          request.setCorrelatorId(123456);
+          request.setPaymentAmount(125.00);
+          request.setEmail("breaker.user@example.com");
+          request.setCreditCard("4111111111111111");
+          request.setCvc("123");
+
+          DownstreamClient userManagement = new DownstreamClient(DownstreamService.USER_MANAGEMENT,
+                    "http://localhost:8086/api/v1/processTopic", userManagementClient, null);
+          userManagement.getCircuitBreaker().transitionToOpenState();
+          when(downstreamClients.forTopic(anyString())).thenReturn(userManagement);
+          when(postgresService.save(any(Payment.class))).thenAnswer(invocation -> {
+               Payment payment = invocation.getArgument(0);
+               payment.setId(2000L);
+               return payment;
+          });
+
+          ResponseEntity<Object> httpResponse = businessLogic.processPaymentRequest(request);
+
+          ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+          verify(postgresService).save(saved.capture());
+          Assertions.assertTrue(httpResponse.getBody() instanceof PaymentResponse);
+          Assertions.assertEquals(0, new BigDecimal("125.00").compareTo(saved.getValue().getCashAmount()));
+          Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(saved.getValue().getRewardCashApplied()));
+          verify(userManagementClient, never()).post();
+          Assertions.assertEquals(1, stageCount("account_info", "failure"));
+     }
+
+     @Test
+     @DisplayName("[BUSINESS_LOGIC] Passed deadline abandons the PaymentRequest before any downstream call")
+     public void deadlinePassedBeforeProcessing(TestInfo testInfo) {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = paymentRequest(345678, "late.user@example.com");
+
+          ResponseEntity<Object> httpResponse;
+          try (Deadline.Scope ignored = Deadline.after(Duration.ZERO).attach()) {
+               httpResponse = businessLogic.processPaymentRequest(request);
+          }
+
+          Assertions.assertEquals(HttpStatus.GATEWAY_TIMEOUT, httpResponse.getStatusCode());
+          verify(userManagementClient, never()).post();
+          verify(postgresService, never()).save(any(Payment.class));
+          verify(asyncLogic, never()).handleRewards(any(), ArgumentMatchers.anyLong());
+     }
+
+     @Test
+     @DisplayName("[BUSINESS_LOGIC] Deadline passing after the redemption still stores the payment")
+     public void deadlinePassedAfterRedemption(TestInfo testInfo) {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = paymentRequest(456789, "slow.user@example.com");
+
+          AccountInfoResponse accountResponse = new AccountInfoResponse();
+          accountResponse.setTopicName("AccountInfoResponse");
+          accountResponse.setName("Slow User");
+          accountResponse.setEmail("slow.user@example.com");
+          accountResponse.setRewardPoints(5000);
+          RewardsResponse rewardsResponse = new RewardsResponse();
+          rewardsResponse.setTopicName("RewardResponse");
+          rewardsResponse.setApplication(Application.SUCCESS);
+
+          RestClient.RequestBodyUriSpec uriSpec = mock(RestClient.RequestBodyUriSpec.class);
+          RestClient.RequestBodySpec bodySpec = mock(RestClient.RequestBodySpec.class);
+          RestClient.ResponseSpec responseSpec = mock(RestClient.ResponseSpec.class);
+          when(downstreamClients.forTopic(anyString())).thenReturn(new DownstreamClient(
+               DownstreamService.USER_MANAGEMENT, "http://localhost:8086/api/v1/processTopic", userManagementClient, null));
+          when(userManagementClient.post()).thenReturn(uriSpec);
+          when(uriSpec.uri(ArgumentMatchers.<String>any())).thenReturn(bodySpec);
+          when(bodySpec.contentType(any(MediaType.class))).thenReturn(bodySpec);
+          when(bodySpec.body(any(Object.class))).thenReturn(bodySpec);
+          when(bodySpec.retrieve()).thenReturn(responseSpec);
+          // the RewardsRequest answers after the deadline, the points are redeemed by then
+          when(responseSpec.body(String.class)).thenReturn(toJson(accountResponse)).thenAnswer(invocation -> {
+               Thread.sleep(300);
+               return toJson(rewardsResponse);
+          });
+          when(postgresService.save(any(Payment.class))).thenAnswer(invocation -> {
+               Payment payment = invocation.getArgument(0);
+               payment.setId(3000L);
+               return payment;
+          });
+
+          ResponseEntity<Object> httpResponse;
+          try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(150)).attach()) {
+               httpResponse = businessLogic.processPaymentRequest(request);
+          }
+
+          ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+          verify(postgresService).save(saved.capture());
+          Assertions.assertEquals(HttpStatus.OK, httpResponse.getStatusCode());
+          Assertions.assertEquals(0, new BigDecimal("25.00").compareTo(saved.getValue().getRewardCashApplied()));
+     }
+
+     @Test
+     @DisplayName("[BUSINESS_LOGIC] Deadline passing before the redemption abandons the PaymentRequest")
+     public void deadlinePassedBeforeRedemption(TestInfo testInfo) {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = paymentRequest(567890, "lookup.user@example.com");
+
+          AccountInfoResponse accountResponse = new AccountInfoResponse();
+          accountResponse.setTopicName("AccountInfoResponse");
+          accountResponse.setName("Lookup User");
+          accountResponse.setEmail("lookup.user@example.com");
+          accountResponse.setRewardPoints(5000);
+
+          RestClient.RequestBodyUriSpec uriSpec = mock(RestClient.RequestBodyUriSpec.class);
+          RestClient.RequestBodySpec bodySpec = mock(RestClient.RequestBodySpec.class);
+          RestClient.ResponseSpec responseSpec = mock(RestClient.ResponseSpec.class);
+          when(downstreamClients.forTopic(anyString())).thenReturn(new DownstreamClient(
+               DownstreamService.USER_MANAGEMENT, "http://localhost:8086/api/v1/processTopic", userManagementClient, null));
+          when(userManagementClient.post()).thenReturn(uriSpec);
+          when(uriSpec.uri(ArgumentMatchers.<String>any())).thenReturn(bodySpec);
+          when(bodySpec.contentType(any(MediaType.class))).thenReturn(bodySpec);
+          when(bodySpec.body(any(Object.class))).thenReturn(bodySpec);
+          when(bodySpec.retrieve()).thenReturn(responseSpec);
+          // the AccountInfoResponse answers after the deadline, the RewardsRequest is never sent
+          when(responseSpec.body(String.class)).thenAnswer(invocation -> {
+               Thread.sleep(300);
+               return toJson(accountResponse);
+          });
+
+          ResponseEntity<Object> httpResponse;
+          try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(150)).attach()) {
+               httpResponse = businessLogic.processPaymentRequest(request);
+          }
+
+          Assertions.assertEquals(HttpStatus.GATEWAY_TIMEOUT, httpResponse.getStatusCode());
+          verify(userManagementClient, times(1)).post();
+          verify(postgresService, never()).save(any(Payment.class));
+          verify(postgresService).releaseCorrelatorId(567890L);
+          verify(asyncLogic, never()).handleRewards(any(), ArgumentMatchers.anyLong());
+
+          // not remembered, a retry with more time processes the payment
+          Assertions.assertEquals(0, idempotencyCache.getStats().cached());
+     }
+
+     @Test
+     @DisplayName("[BUSINESS_LOGIC] A correlatorId claimed by another instance is not redeemed again")
+     public void correlatorIdClaimedElsewhere(TestInfo testInfo) {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = paymentRequest(678901, "twice.user@example.com");
+          when(postgresService.claimCorrelatorId(678901L)).thenReturn(CorrelatorClaim.IN_PROGRESS);
+
+          ResponseEntity<Object> httpResponse = businessLogic.processPaymentRequest(request);
+
+          Assertions.assertEquals(HttpStatus.CONFLICT, httpResponse.getStatusCode());
+          verify(userManagementClient, never()).post();
+          verify(postgresService, never()).save(any(Payment.class));
+          verify(postgresService, never()).releaseCorrelatorId(ArgumentMatchers.anyLong());
+
+          // once the other instance stored it, the retry gets the PaymentResponse
+          when(postgresService.claimCorrelatorId(678901L)).thenReturn(CorrelatorClaim.STORED);
+          ResponseEntity<Object> retried = businessLogic.processPaymentRequest(request);
+
+          Assertions.assertTrue(retried.getBody() instanceof PaymentResponse);
+          Assertions.assertEquals(Status.SUCCESSFUL, ((PaymentResponse) retried.getBody()).getStatus());
+          verify(userManagementClient, never()).post();
+          verify(postgresService, never()).save(any(Payment.class));
+     }
+
+     private static PaymentRequest paymentRequest(int correlatorId, String email) {
+          PaymentRequest request = new PaymentRequest();
+          request.setTopicName("PaymentRequest");
+          request.setCorrelatorId(correlatorId);
+          request.setPaymentAmount(125.00);
+          request.setEmail(email);
+          request.setCreditCard("4111111111111111");
+          request.setCvc("123");
+          return request;
+     }
+
+     private long stageCount(String stage, String outcome) {
+          return meterRegistry.get(PipelineMetrics.STAGE_TIMER)
+                    .tags("stage", stage, "topic", "PaymentRequest", "outcome", outcome)
+                    .timer().count();
+     }
+
      // Helper method to serialize an object to JSON string
      private String toJson(Object obj) {
           try {
@@ -0,0 +1,153 @@
+package com.businessLogic;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import com.cache.AccountCache;
+import com.cache.IdempotencyCache;
+import com.deadline.Deadline;
+import com.downstream.DownstreamService;
+import com.downstream.ReactiveDownstreamClients;
+import com.json.JsonCodec;
+import com.metrics.PipelineMetrics;
+import com.postgres.CorrelatorClaim;
+import com.postgres.ReactivePaymentStore;
+import com.postgres.models.Payment;
+import com.topics.AccountInfoResponse;
+import com.topics.PaymentRequest;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+import com.topics.RewardsResponse;
+import com.topics.RewardsResponse.Application;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import reactor.core.publisher.Mono;
+
+/*
+ * ReactiveBusinessLogic has to store and answer exactly what BusinessLogic does, these mirror the
+ * discount and open breaker cases of BusinessLogicTest.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveBusinessLogicTest {
+     @InjectMocks
+     private ReactiveBusinessLogic businessLogic;
+     @Mock
+     private ReactivePaymentStore paymentStore;
+     @Mock
+     private ReactiveDownstreamClients downstreamClients;
+     @Mock
+     private AsyncLogic asyncLogic;
+     @Spy
+     private JsonCodec jsonCodec = new JsonCodec();
+     @Spy
+     private AccountCache accountCache = new AccountCache(100, 30000);
+     @Spy
+     private IdempotencyCache idempotencyCache = new IdempotencyCache(100, 60);
+     @Spy
+     private RewardsBalanceLock balanceLock = new RewardsBalanceLock();
+     @Spy
+     private PipelineMetrics metrics = PipelineMetrics.noop();
+
+     @Test
+     @DisplayName("[REACTIVE] Valid PaymentRequest gets the discount and retries are answered from the cache")
+     public void discountAndRetry(TestInfo testInfo) throws Exception {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = request(987654, "test.user@example.com");
+
+          AccountInfoResponse accountResponse = new AccountInfoResponse();
+          accountResponse.setTopicName("AccountInfoResponse");
+          accountResponse.setCorrelatorId(987654);
+          accountResponse.setName("Test User");
+          accountResponse.setEmail("test.user@example.com");
+          accountResponse.setRewardPoints(5000);
+
+          RewardsResponse rewardsResponse = new RewardsResponse();
+          rewardsResponse.setTopicName("RewardResponse");
+          rewardsResponse.setApplication(Application.SUCCESS);
+          rewardsResponse.setEmail("test.user@example.com");
+
+          when(paymentStore.claimCorrelatorId(987654L)).thenReturn(Mono.just(CorrelatorClaim.CLAIMED));
+          when(downstreamClients.post(eq(DownstreamService.USER_MANAGEMENT), anyString(), any()))
+                    .thenReturn(Mono.just(jsonCodec.writeAsString(accountResponse)),
+                              Mono.just(jsonCodec.writeAsString(rewardsResponse)));
+          when(paymentStore.insert(any(Payment.class))).thenAnswer(invocation -> {
+               Payment payment = invocation.getArgument(0);
+               payment.setId(1000L);
+               return Mono.just(payment);
+          });
+
+          ResponseEntity<Object> httpResponse = process(request);
+
+          ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+          verify(paymentStore).insert(saved.capture());
+          Assertions.assertTrue(httpResponse.getBody() instanceof PaymentResponse);
+          PaymentResponse response = (PaymentResponse) httpResponse.getBody();
+          Assertions.assertEquals(Status.SUCCESSFUL, response.getStatus());
+          Assertions.assertEquals(0, new BigDecimal("100.00").compareTo(saved.getValue().getCashAmount()));
+          Assertions.assertEquals(0, new BigDecimal("25.00").compareTo(saved.getValue().getRewardCashApplied()));
+          Assertions.assertEquals(0, accountCache.getCache().getIfPresent(request.getEmail()).rewardPoints());
+          verify(asyncLogic).handleRewards(request, RewardsMath.toUnits(100.00));
+
+          // same correlatorId, no new calls or rows
+          Assertions.assertSame(response, process(request).getBody());
+          verify(downstreamClients, times(2)).post(any(), anyString(), any());
+          verify(paymentStore, times(1)).insert(any(Payment.class));
+     }
+
+     @Test
+     @DisplayName("[REACTIVE] Open circuit breaker processes the payment without a discount")
+     public void circuitBreakerOpen(TestInfo testInfo) {
+          System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+          PaymentRequest request = request(123456, "breaker.user@example.com");
+
+          when(paymentStore.claimCorrelatorId(123456L)).thenReturn(Mono.just(CorrelatorClaim.CLAIMED));
+          when(downstreamClients.post(eq(DownstreamService.USER_MANAGEMENT), anyString(), any()))
+                    .thenReturn(Mono.error(CallNotPermittedException.createCallNotPermittedException(
+                              CircuitBreaker.ofDefaults("user-management"))));
+          when(paymentStore.insert(any(Payment.class))).thenAnswer(invocation -> {
+               Payment payment = invocation.getArgument(0);
+               payment.setId(2000L);
+               return Mono.just(payment);
+          });
+
+          ResponseEntity<Object> httpResponse = process(request);
+
+          ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+          verify(paymentStore).insert(saved.capture());
+          Assertions.assertTrue(httpResponse.getBody() instanceof PaymentResponse);
+          Assertions.assertEquals(0, new BigDecimal("125.00").compareTo(saved.getValue().getCashAmount()));
+          Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(saved.getValue().getRewardCashApplied()));
+     }
+
+     private ResponseEntity<Object> process(PaymentRequest request) {
+          return businessLogic.processPaymentRequest(request, Deadline.after(Duration.ofSeconds(5)))
+                    .block(Duration.ofSeconds(5));
+     }
+
+     private static PaymentRequest request(int correlatorId, String email) {
+          PaymentRequest request = new PaymentRequest();
+          request.setTopicName("PaymentRequest");
+          request.setCorrelatorId(correlatorId);
+          request.setPaymentAmount(125.00);
+          request.setEmail(email);
+          request.setCreditCard("4111111111111111");
+          request.setCvc("123");
+          return request;
+     }
+}
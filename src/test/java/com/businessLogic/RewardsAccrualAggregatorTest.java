@@ -0,0 +1,252 @@
+package com.businessLogic;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+import com.cache.AccountCache;
+import com.cache.CachedAccount;
+import com.downstream.DownstreamClient;
+import com.downstream.DownstreamClients;
+import com.downstream.DownstreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.json.JsonCodec;
+import com.metrics.PipelineMetrics;
+import com.topics.AccountInfoRequest;
+import com.topics.AccountInfoResponse;
+import com.topics.RewardsRequest;
+import com.topics.RewardsResponse;
+
+public class RewardsAccrualAggregatorTest {
+    private static final String EMAIL = "rewards.user@example.com";
+
+    @Test
+    @DisplayName("[REWARDS_ACCRUAL] Payments of one window are sent as one RewardsRequest")
+    public void mergesAccrualsIntoOneRequest(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        JsonCodec jsonCodec = new JsonCodec();
+        RestClient userManagementClient = mock(RestClient.class);
+        DownstreamClients downstreamClients = mock(DownstreamClients.class);
+        when(downstreamClients.forTopic(ArgumentMatchers.anyString())).thenReturn(new DownstreamClient(
+                DownstreamService.USER_MANAGEMENT, "http://localhost:8086/api/v1/processTopic", userManagementClient, null));
+
+        AccountInfoResponse account = new AccountInfoResponse();
+        account.setTopicName("AccountInfoResponse");
+        account.setName("Rewards User");
+        account.setUsername("rewards");
+        account.setEmail(EMAIL);
+        account.setRewardPoints(100);
+
+        RewardsResponse rewardsResponse = new RewardsResponse();
+        rewardsResponse.setTopicName("RewardsResponse");
+        rewardsResponse.setApplication(RewardsResponse.Application.SUCCESS);
+
+        RestClient.RequestBodyUriSpec uriSpec1 = mock(RestClient.RequestBodyUriSpec.class);
+        RestClient.RequestBodySpec bodySpec1 = mock(RestClient.RequestBodySpec.class);
+        RestClient.ResponseSpec responseSpec1 = mock(RestClient.ResponseSpec.class);
+        RestClient.RequestBodyUriSpec uriSpec2 = mock(RestClient.RequestBodyUriSpec.class);
+        RestClient.RequestBodySpec bodySpec2 = mock(RestClient.RequestBodySpec.class);
+        RestClient.ResponseSpec responseSpec2 = mock(RestClient.ResponseSpec.class);
+        when(userManagementClient.post()).thenReturn(uriSpec1, uriSpec2);
+
+        // AccountInfoRequest
+        when(uriSpec1.uri(ArgumentMatchers.<String>any())).thenReturn(bodySpec1);
+        when(bodySpec1.contentType(any(MediaType.class))).thenReturn(bodySpec1);
+        when(bodySpec1.body(any(AccountInfoRequest.class))).thenReturn(bodySpec1);
+        when(bodySpec1.retrieve()).thenReturn(responseSpec1);
+        when(responseSpec1.body(String.class)).thenReturn(toJson(jsonCodec, account));
+
+        // RewardsRequest
+        when(uriSpec2.uri(ArgumentMatchers.<String>any())).thenReturn(bodySpec2);
+        when(bodySpec2.contentType(any(MediaType.class))).thenReturn(bodySpec2);
+        when(bodySpec2.body(any(RewardsRequest.class))).thenReturn(bodySpec2);
+        when(bodySpec2.retrieve()).thenReturn(responseSpec2);
+        when(responseSpec2.body(String.class)).thenReturn(toJson(jsonCodec, rewardsResponse));
+
+        AccountCache accountCache = new AccountCache(100, 30000);
+        // a window longer than the test, stop() sends what is pending
+        RewardsAccrualAggregator aggregator = new RewardsAccrualAggregator(downstreamClients, jsonCodec,
+                accountCache, PipelineMetrics.noop(), new RewardsBalanceLock(), Runnable::run, true, 60_000, 100, 5000);
+        aggregator.start();
+        aggregator.accrue(EMAIL, "rewards", 1, 250);
+        aggregator.accrue(EMAIL, "rewards", 2, 40);
+        aggregator.accrue(EMAIL, "rewards", 3, 10);
+        Assertions.assertEquals(1, aggregator.getStats().pending());
+        aggregator.stop();
+
+        ArgumentCaptor<RewardsRequest> sent = ArgumentCaptor.forClass(RewardsRequest.class);
+        verify(bodySpec2).body(sent.capture());
+        verify(userManagementClient, times(2)).post();
+        Assertions.assertEquals(400, sent.getValue().getRewardPoints());
+        Assertions.assertEquals(3, sent.getValue().getCorrelatorId());
+        Assertions.assertEquals(RewardsRequest.Application.REWARD_POINTS_ADDED, sent.getValue().getApplication());
+        Assertions.assertEquals(400, accountCache.getCache().getIfPresent(EMAIL).rewardPoints());
+
+        RewardsAccrualAggregator.Stats stats = aggregator.getStats();
+        Assertions.assertEquals(3, stats.accruals());
+        Assertions.assertEquals(2, stats.merged());
+        Assertions.assertEquals(1, stats.requests());
+        Assertions.assertEquals(1, stats.flushes());
+        Assertions.assertEquals(0, stats.pending());
+    }
+
+    @Test
+    @DisplayName("[REWARDS_ACCRUAL] An inline send waits for the flush of the same email")
+    public void inlineSendWaitsForFlushOfSameEmail(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        JsonCodec jsonCodec = new JsonCodec();
+        RestClient userManagementClient = mock(RestClient.class);
+        DownstreamClients downstreamClients = mock(DownstreamClients.class);
+        when(downstreamClients.forTopic(ArgumentMatchers.anyString())).thenReturn(new DownstreamClient(
+                DownstreamService.USER_MANAGEMENT, "http://localhost:8086/api/v1/processTopic", userManagementClient, null));
+
+        AccountInfoResponse account = new AccountInfoResponse();
+        account.setTopicName("AccountInfoResponse");
+        account.setName("Rewards User");
+        account.setUsername("rewards");
+        account.setRewardPoints(100);
+        RewardsResponse rewardsResponse = new RewardsResponse();
+        rewardsResponse.setTopicName("RewardsResponse");
+        rewardsResponse.setApplication(RewardsResponse.Application.SUCCESS);
+
+        // one request chain for every call, the request body of the calling thread picks the response
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<RewardsRequest> sent = new CopyOnWriteArrayList<>();
+        ThreadLocal<Object> request = new ThreadLocal<>();
+        RestClient.RequestBodyUriSpec uriSpec = mock(RestClient.RequestBodyUriSpec.class);
+        RestClient.RequestBodySpec bodySpec = mock(RestClient.RequestBodySpec.class);
+        RestClient.ResponseSpec responseSpec = mock(RestClient.ResponseSpec.class);
+        when(userManagementClient.post()).thenReturn(uriSpec);
+        when(uriSpec.uri(ArgumentMatchers.<String>any())).thenReturn(bodySpec);
+        when(bodySpec.contentType(any(MediaType.class))).thenReturn(bodySpec);
+        when(bodySpec.body(any(Object.class))).thenAnswer(invocation -> {
+            request.set(invocation.getArgument(0));
+            return bodySpec;
+        });
+        when(bodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.body(String.class)).thenAnswer(invocation -> {
+            if (request.get() instanceof AccountInfoRequest accountInfoRequest) {
+                account.setEmail(accountInfoRequest.getEmail());
+                return toJson(jsonCodec, account);
+            }
+            RewardsRequest rewardsRequest = (RewardsRequest) request.get();
+            sent.add(rewardsRequest);
+            if (sent.size() == 1) {
+                // the first flush stays in flight until the test lets it finish
+                sending.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return toJson(jsonCodec, rewardsResponse);
+        });
+
+        AccountCache accountCache = new AccountCache(100, 30000);
+        RewardsAccrualAggregator aggregator = new RewardsAccrualAggregator(downstreamClients, jsonCodec,
+                accountCache, PipelineMetrics.noop(), new RewardsBalanceLock(), Runnable::run, true, 50, 1, 5000);
+        aggregator.start();
+        aggregator.accrue(EMAIL, "rewards", 1, 10);
+        Assertions.assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // the buffer is full with another user, the next payment of EMAIL overflows while EMAIL is in flight
+        aggregator.accrue("other.user@example.com", "rewards", 2, 5);
+        Thread overflow = new Thread(() -> aggregator.accrue(EMAIL, "rewards", 3, 20));
+        overflow.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (overflow.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(1, aggregator.getStats().overflows());
+        Assertions.assertEquals(1, sent.size());
+
+        release.countDown();
+        overflow.join(5000);
+        aggregator.stop();
+
+        List<Integer> emailPoints = sent.stream().filter(r -> EMAIL.equals(r.getEmail()))
+                .map(RewardsRequest::getRewardPoints).toList();
+        Assertions.assertEquals(List.of(110, 130), emailPoints);
+        Assertions.assertEquals(130, accountCache.getCache().getIfPresent(EMAIL).rewardPoints());
+    }
+
+    @Test
+    @DisplayName("[REWARDS_ACCRUAL] An accrual waits for a redemption of the same user and adds to its balance")
+    public void accrualWaitsForRedemption(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        JsonCodec jsonCodec = new JsonCodec();
+        RestClient userManagementClient = mock(RestClient.class);
+        DownstreamClients downstreamClients = mock(DownstreamClients.class);
+        when(downstreamClients.forTopic(ArgumentMatchers.anyString())).thenReturn(new DownstreamClient(
+                DownstreamService.USER_MANAGEMENT, "http://localhost:8086/api/v1/processTopic", userManagementClient, null));
+
+        RewardsResponse rewardsResponse = new RewardsResponse();
+        rewardsResponse.setTopicName("RewardsResponse");
+        rewardsResponse.setApplication(RewardsResponse.Application.SUCCESS);
+        RestClient.RequestBodyUriSpec uriSpec = mock(RestClient.RequestBodyUriSpec.class);
+        RestClient.RequestBodySpec bodySpec = mock(RestClient.RequestBodySpec.class);
+        RestClient.ResponseSpec responseSpec = mock(RestClient.ResponseSpec.class);
+        when(userManagementClient.post()).thenReturn(uriSpec);
+        when(uriSpec.uri(ArgumentMatchers.<String>any())).thenReturn(bodySpec);
+        when(bodySpec.contentType(any(MediaType.class))).thenReturn(bodySpec);
+        when(bodySpec.body(any(RewardsRequest.class))).thenReturn(bodySpec);
+        when(bodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.body(String.class)).thenReturn(toJson(jsonCodec, rewardsResponse));
+
+        AccountCache accountCache = new AccountCache(100, 30000);
+        accountCache.put(EMAIL, new CachedAccount("Rewards User", "rewards", EMAIL, 100));
+        RewardsBalanceLock balanceLock = new RewardsBalanceLock();
+        // write-behind off, the accrual is sent on the calling thread
+        RewardsAccrualAggregator aggregator = new RewardsAccrualAggregator(downstreamClients, jsonCodec,
+                accountCache, PipelineMetrics.noop(), balanceLock, Runnable::run, false, 50, 100, 5000);
+
+        // a payment redeems 60 of the 100 points, the accrual arrives while it is in flight
+        CountDownLatch redeeming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread redemption = new Thread(() -> balanceLock.execute(EMAIL, () -> {
+            redeeming.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            accountCache.updateRewardPoints(EMAIL, 40);
+            return null;
+        }));
+        redemption.start();
+        Assertions.assertTrue(redeeming.await(5, TimeUnit.SECONDS));
+
+        Thread accrual = new Thread(() -> aggregator.accrue(EMAIL, "rewards", 2, 10));
+        accrual.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (accrual.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        verify(userManagementClient, times(0)).post();
+
+        release.countDown();
+        redemption.join(5000);
+        accrual.join(5000);
+
+        // added to the balance the redemption left, not to the 100 read before it
+        ArgumentCaptor<RewardsRequest> sent = ArgumentCaptor.forClass(RewardsRequest.class);
+        verify(bodySpec).body(sent.capture());
+        Assertions.assertEquals(50, sent.getValue().getRewardPoints());
+        Assertions.assertEquals(50, accountCache.getCache().getIfPresent(EMAIL).rewardPoints());
+    }
+
+    private static String toJson(JsonCodec jsonCodec, Object value) throws JsonProcessingException {
+        return jsonCodec.writeAsString(value);
+    }
+}
@@ -0,0 +1,92 @@
+package com.businessLogic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.junit.jupiter.api.Assertions;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Label;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
+
+/*
+ * Property tests for RewardsMath against the redemption/accrual semantics BusinessLogic and
+ * AsyncLogic had with Double math:
+ *   cappedPoints = min(rewardPoints, amount * 200), cash = amount - cappedPoints / 200
+ *   accrual = (int) (cash * 10)
+ * The reference is computed exactly with BigDecimal, the legacy Double version only has to be
+ * within a cent/point of it (that's the rounding noise this replaces).
+ */
+public class RewardsMathTest {
+
+    @Property
+    @Label("[REWARDS] Redemption and accrual match the exact legacy formula")
+    public void matchesExactReference(@ForAll @IntRange(min = 1, max = 10_000_000) int amountCents,
+                                      @ForAll @IntRange(min = 0, max = 5_000_000) int rewardPoints) {
+        BigDecimal amount = BigDecimal.valueOf(amountCents, 2);
+        BigDecimal capped = BigDecimal.valueOf(rewardPoints).min(amount.multiply(BigDecimal.valueOf(200)));
+        BigDecimal cash = amount.subtract(capped.divide(BigDecimal.valueOf(200)));
+        long accrual = cash.multiply(BigDecimal.TEN).setScale(0, RoundingMode.DOWN).longValueExact();
+
+        long amountUnits = RewardsMath.toUnits(amount.doubleValue());
+        long redeemed = RewardsMath.redeemedPoints(amountUnits, rewardPoints);
+        long cashUnits = RewardsMath.cashUnits(amountUnits, redeemed);
+
+        Assertions.assertEquals(capped.longValueExact(), redeemed);
+        Assertions.assertEquals(0, cash.setScale(2, RoundingMode.HALF_UP).compareTo(RewardsMath.toDollars(cashUnits)));
+        Assertions.assertEquals(accrual, RewardsMath.accruedPoints(cashUnits));
+        Assertions.assertEquals(amountUnits, redeemed + cashUnits);
+        Assertions.assertTrue(rewardPoints - redeemed >= 0);
+    }
+
+    @Property
+    @Label("[REWARDS] Legacy Double math is within a cent and a point of RewardsMath")
+    public void legacyDoubleWithinTolerance(@ForAll @IntRange(min = 1, max = 10_000_000) int amountCents,
+                                            @ForAll @IntRange(min = 0, max = 5_000_000) int rewardPoints) {
+        Double paymentAmount = amountCents / 100.0;
+        Double points = (double) rewardPoints;
+        Double cappedPoints = Math.min(points, paymentAmount * 200);
+        Double discountedAmount = paymentAmount - (cappedPoints / 200.0);
+        int legacyAccrual = (int) (discountedAmount * 10);
+
+        long amountUnits = RewardsMath.toUnits(paymentAmount);
+        long cashUnits = RewardsMath.cashUnits(amountUnits, RewardsMath.redeemedPoints(amountUnits, rewardPoints));
+
+        Assertions.assertTrue(Math.abs(RewardsMath.toDollars(cashUnits).doubleValue() - discountedAmount) <= 0.01);
+        Assertions.assertTrue(Math.abs(RewardsMath.accruedPoints(cashUnits) - legacyAccrual) <= 1);
+    }
+
+    @Property
+    @Label("[REWARDS] Stored cash and reward cash add up to the payment amount")
+    public void storedPartsAddUp(@ForAll @IntRange(min = 1, max = 10_000_000) int amountCents,
+                                 @ForAll @IntRange(min = 0, max = 5_000_000) int rewardPoints) {
+        long amountUnits = RewardsMath.toUnits(BigDecimal.valueOf(amountCents, 2).doubleValue());
+        long redeemed = RewardsMath.redeemedPoints(amountUnits, rewardPoints);
+
+        BigDecimal paymentAmount = RewardsMath.toDollars(amountUnits);
+        BigDecimal cash = RewardsMath.cashDollars(amountUnits, redeemed);
+        BigDecimal reward = RewardsMath.rewardDollars(redeemed);
+
+        Assertions.assertEquals(0, paymentAmount.compareTo(cash.add(reward)));
+        Assertions.assertEquals(2, cash.scale());
+        Assertions.assertTrue(cash.signum() >= 0);
+        // off the exact cash amount by at most the half cent an odd point is worth
+        BigDecimal exactCash = BigDecimal.valueOf(RewardsMath.cashUnits(amountUnits, redeemed) * 5, 3);
+        Assertions.assertTrue(cash.subtract(exactCash).abs().compareTo(new BigDecimal("0.005")) <= 0);
+    }
+
+    @Example
+    @Label("[REWARDS] One point off $10.00 stores 9.99 cash and 0.01 reward cash")
+    public void oddPointRoundsOnce() {
+        long amountUnits = RewardsMath.toUnits(10.00);
+        Assertions.assertEquals(new BigDecimal("9.99"), RewardsMath.cashDollars(amountUnits, 1));
+        Assertions.assertEquals(new BigDecimal("0.01"), RewardsMath.rewardDollars(1));
+    }
+
+    @Property
+    @Label("[REWARDS] Dollar conversion round trips every cent amount")
+    public void dollarsRoundTrip(@ForAll @IntRange(min = 0, max = 10_000_000) int amountCents) {
+        BigDecimal amount = BigDecimal.valueOf(amountCents, 2);
+        Assertions.assertEquals(amount, RewardsMath.toDollars(RewardsMath.toUnits(amount.doubleValue())));
+    }
+}
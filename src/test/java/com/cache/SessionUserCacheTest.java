@@ -0,0 +1,74 @@
+package com.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class SessionUserCacheTest {
+
+    @Test
+    @DisplayName("[SESSION_CACHE] Concurrent lookups share one session-manager call")
+    public void concurrentLookupsShareOneCall(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        SessionUserCache cache = new SessionUserCache(0);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> lookups = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                lookups.add(callers.submit(() -> cache.get(() -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "loadtest";
+                })));
+            }
+            // let every caller reach the cache before the one lookup returns
+            while (cache.getStats().calls() + cache.getStats().coalesced() < 50) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> lookup : lookups) {
+                Assertions.assertEquals("loadtest", lookup.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1, cache.getStats().calls());
+        Assertions.assertEquals(49, cache.getStats().coalesced());
+    }
+
+    @Test
+    @DisplayName("[SESSION_CACHE] NO-USER is cached for the TTL, failures are not")
+    public void cachesNoUserButNotFailures(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        SessionUserCache cache = new SessionUserCache(60_000);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> cache.get(() -> {
+            throw new IllegalStateException("session-manager down");
+        }));
+        Assertions.assertNull(cache.get(() -> null));
+        Assertions.assertEquals("NO-USER", cache.get(() -> "NO-USER"));
+        Assertions.assertEquals("NO-USER", cache.get(() -> "someone-else"));
+
+        Assertions.assertEquals(3, cache.getStats().calls());
+        Assertions.assertEquals(1, cache.getStats().hits());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
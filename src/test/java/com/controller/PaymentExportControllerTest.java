@@ -0,0 +1,71 @@
+package com.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.postgres.PaymentExporter;
+import com.postgres.PaymentExporter.Filter;
+import com.postgres.PaymentExporter.Format;
+
+public class PaymentExportControllerTest {
+    private final PaymentExporter paymentExporter = mock(PaymentExporter.class);
+    private final PaymentExportController controller = new PaymentExportController(paymentExporter);
+
+    @Test
+    @DisplayName("[PAYMENT_EXPORT] The filter parameters reach the exporter")
+    public void passesFilter(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        ResponseEntity<?> response = controller.exportPayments("csv", "alice@example.com",
+                "2025-11-01T00:00:00Z", "2025-12-01T00:00:00Z", false);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(MediaType.parseMediaType("text/csv"), response.getHeaders().getContentType());
+        Assertions.assertEquals("attachment; filename=\"payments.csv\"",
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+
+        // nothing is read until the body is written to the client
+        verify(paymentExporter, never()).export(any(), any(), anyBoolean(), any());
+        OutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        verify(paymentExporter).export(Format.CSV, new Filter("alice@example.com",
+                Instant.parse("2025-11-01T00:00:00Z"), Instant.parse("2025-12-01T00:00:00Z")), false, out);
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_EXPORT] gzip downloads are named and typed as gzip")
+    public void gzipDownload(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        ResponseEntity<?> response = controller.exportPayments("ndjson", null, null, null, true);
+
+        Assertions.assertEquals(MediaType.parseMediaType("application/gzip"), response.getHeaders().getContentType());
+        Assertions.assertEquals("attachment; filename=\"payments.ndjson.gz\"",
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_EXPORT] Invalid format, from or to is a 400")
+    public void invalidParameters(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                controller.exportPayments("xml", null, null, null, false).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                controller.exportPayments("csv", null, "2025-11-01", null, false).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                controller.exportPayments("csv", null, null, "tomorrow", false).getStatusCode());
+        verify(paymentExporter, never()).export(any(), any(), anyBoolean(), any());
+    }
+}
@@ -0,0 +1,98 @@
+package com.controller;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.postgres.PaymentCursor;
+import com.postgres.PaymentRepository;
+import com.postgres.PostgresService;
+import com.postgres.PostgresService.PaymentHistoryPage;
+import com.postgres.models.PaymentHistoryView;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentHistoryControllerTest {
+    private static final String EMAIL = "history.user@example.com";
+
+    @InjectMocks
+    private PostgresService postgresService;
+    @Mock
+    private PaymentRepository paymentRepository;
+    private PaymentHistoryController controller;
+
+    @BeforeEach
+    public void setUp() {
+        controller = new PaymentHistoryController(postgresService);
+        ReflectionTestUtils.setField(controller, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(controller, "maxPageSize", 500);
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_HISTORY] A full page links to the next one with a cursor")
+    public void pagesWithCursor(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentHistoryView newest = row(3L, "2025-11-12T21:35:00Z");
+        PaymentHistoryView middle = row(2L, "2025-11-12T21:30:00Z");
+        PaymentHistoryView oldest = row(1L, "2025-11-11T18:30:00Z");
+        when(paymentRepository.findHistoryFirstPage(EMAIL, 3)).thenReturn(List.of(newest, middle, oldest));
+        when(paymentRepository.findHistoryPageAfter(EMAIL, Instant.parse("2025-11-12T21:30:00Z"), 2L, 3))
+                .thenReturn(List.of(oldest));
+
+        ResponseEntity<Object> first = controller.paymentHistory(EMAIL, null, null);
+        PaymentHistoryPage firstPage = (PaymentHistoryPage) first.getBody();
+        Assertions.assertEquals(List.of(newest, middle), firstPage.payments());
+        Assertions.assertEquals(new PaymentCursor(Instant.parse("2025-11-12T21:30:00Z"), 2L),
+                PaymentCursor.decode(firstPage.nextCursor()));
+
+        ResponseEntity<Object> second = controller.paymentHistory(EMAIL, null, firstPage.nextCursor());
+        PaymentHistoryPage secondPage = (PaymentHistoryPage) second.getBody();
+        Assertions.assertEquals(List.of(oldest), secondPage.payments());
+        Assertions.assertNull(secondPage.nextCursor());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_HISTORY] A malformed cursor is a 400 without a query")
+    public void malformedCursor(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        ResponseEntity<Object> response = controller.paymentHistory(EMAIL, 10, "not a cursor!");
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(paymentRepository, never()).findHistoryPageAfter(anyString(), ArgumentMatchers.any(), ArgumentMatchers.any(), anyInt());
+        verify(paymentRepository, never()).findHistoryFirstPage(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_HISTORY] Page sizes outside 1..max-page-size are a 400")
+    public void pageSizeOutOfRange(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, controller.paymentHistory(EMAIL, 0, null).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, controller.paymentHistory(EMAIL, 501, null).getStatusCode());
+        verify(paymentRepository, never()).findHistoryFirstPage(anyString(), anyInt());
+    }
+
+    private static PaymentHistoryView row(Long id, String initialTimeStamp) {
+        PaymentHistoryView view = mock(PaymentHistoryView.class);
+        // only the last row of a page becomes the cursor
+        lenient().when(view.getId()).thenReturn(id);
+        lenient().when(view.getInitialTimeStamp()).thenReturn(Instant.parse(initialTimeStamp));
+        return view;
+    }
+}
@@ -0,0 +1,69 @@
+package com.deadline;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import com.downstream.AdaptiveTimeout;
+import com.downstream.DownstreamClient;
+
+public class DeadlineTest {
+
+    @Test
+    @DisplayName("[DEADLINE] Request budget from the X-Request-Timeout-Ms header")
+    public void budgetFromHeader(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertEquals(1500, DeadlineFilter.budgetMs("1500", 5000, 30000));
+        Assertions.assertEquals(1500, DeadlineFilter.budgetMs(" 1500 ", 5000, 30000));
+        // capped at max, negative budgets are already spent
+        Assertions.assertEquals(30000, DeadlineFilter.budgetMs("600000", 5000, 30000));
+        Assertions.assertEquals(0, DeadlineFilter.budgetMs("-20", 5000, 30000));
+        // missing or malformed header gets the default
+        Assertions.assertEquals(5000, DeadlineFilter.budgetMs(null, 5000, 30000));
+        Assertions.assertEquals(5000, DeadlineFilter.budgetMs("soon", 5000, 30000));
+        Assertions.assertEquals(5000, DeadlineFilter.budgetMs("", 5000, 30000));
+        Assertions.assertEquals(5000, DeadlineFilter.budgetMs("1.5", 5000, 30000));
+    }
+
+    @Test
+    @DisplayName("[DEADLINE] Closing a scope restores the previous deadline")
+    public void scopesNest(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertNull(Deadline.current());
+        Deadline outer = Deadline.after(Duration.ofSeconds(10));
+        Deadline inner = Deadline.after(Duration.ofSeconds(1));
+
+        try (Deadline.Scope ignoredOuter = outer.attach()) {
+            Assertions.assertSame(outer, Deadline.current());
+            try (Deadline.Scope ignoredInner = inner.attach()) {
+                Assertions.assertSame(inner, Deadline.current());
+            }
+            Assertions.assertSame(outer, Deadline.current());
+        }
+        Assertions.assertNull(Deadline.current());
+    }
+
+    @Test
+    @DisplayName("[DEADLINE] Expired deadline rejects work, downstream timeouts are capped by it")
+    public void expiredDeadline(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Deadline.check("without a deadline");
+        AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout(0.99, 3.0, 100, 5000);
+        Assertions.assertEquals(5000, DownstreamClient.timeoutMs(adaptiveTimeout, null));
+
+        Deadline expired = Deadline.after(Duration.ZERO);
+        Assertions.assertTrue(expired.isExpired());
+        Assertions.assertEquals(0, expired.remainingMillis());
+        Assertions.assertEquals(0, DownstreamClient.timeoutMs(adaptiveTimeout, expired));
+        try (Deadline.Scope ignored = expired.attach()) {
+            Assertions.assertThrows(DeadlineExceededException.class, () -> Deadline.check("calling"));
+        }
+
+        Deadline later = Deadline.after(Duration.ofSeconds(2));
+        Assertions.assertFalse(later.isExpired());
+        long timeoutMs = DownstreamClient.timeoutMs(adaptiveTimeout, later);
+        Assertions.assertTrue(timeoutMs > 1000 && timeoutMs <= 2000, "capped by the deadline: " + timeoutMs);
+        Assertions.assertEquals(Long.MAX_VALUE, DownstreamClient.timeoutMs(null, null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.downstream;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class AdaptiveTimeoutTest {
+
+    @Test
+    @DisplayName("[ADAPTIVE_TIMEOUT] Starts at the configured maximum until enough calls are seen")
+    public void initialTimeout(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        AdaptiveTimeout timeout = new AdaptiveTimeout(0.99, 3.0, 50, 5000);
+        Assertions.assertEquals(5000, timeout.getTimeoutMs());
+        // recomputed every 64 calls
+        record(timeout, 63, 10);
+        Assertions.assertEquals(5000, timeout.getTimeoutMs());
+        record(timeout, 1, 10);
+        Assertions.assertEquals(50, timeout.getTimeoutMs());
+    }
+
+    @Test
+    @DisplayName("[ADAPTIVE_TIMEOUT] Percentile of recent latency times the multiplier")
+    public void percentileTimesMultiplier(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        AdaptiveTimeout timeout = new AdaptiveTimeout(0.9, 2.0, 1, 10_000);
+        // 1..128 ms, p90 of 128 samples is the 116th smallest
+        for (int ms = 1; ms <= 128; ms++) {
+            timeout.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        Assertions.assertEquals(232, timeout.getTimeoutMs());
+    }
+
+    @Test
+    @DisplayName("[ADAPTIVE_TIMEOUT] Clamped between min and max")
+    public void clamped(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        AdaptiveTimeout fast = new AdaptiveTimeout(0.99, 3.0, 200, 5000);
+        record(fast, 64, 1);
+        Assertions.assertEquals(200, fast.getTimeoutMs());
+
+        AdaptiveTimeout slow = new AdaptiveTimeout(0.99, 3.0, 200, 5000);
+        record(slow, 64, 4000);
+        Assertions.assertEquals(5000, slow.getTimeoutMs());
+
+        // only the last 256 calls count, the service got fast again
+        record(slow, 256, 100);
+        Assertions.assertEquals(300, slow.getTimeoutMs());
+    }
+
+    private static void record(AdaptiveTimeout timeout, int calls, long ms) {
+        for (int i = 0; i < calls; i++) {
+            timeout.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.json;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class TopicStreamReaderTest {
+
+    @Test
+    @DisplayName("[BULK] Reads NDJSON topics one at a time")
+    public void readsNdjson(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        TopicStreamReader reader = reader("""
+            {"topicName": "PaymentRequest", "correlatorId": 1}
+            {"topicName": "PaymentRequest", "correlatorId": 2}
+
+            {"topicName": "PaymentRequest", "correlatorId": 3}
+            """);
+
+        Assertions.assertEquals(1, reader.next().getInt("correlatorId"));
+        Assertions.assertEquals(2, reader.next().getInt("correlatorId"));
+        Assertions.assertEquals(3, reader.next().getInt("correlatorId"));
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("[BULK] Reads a JSON array of topics and skips non-objects")
+    public void readsArray(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        TopicStreamReader reader = reader("""
+            [ {"correlatorId": 1}, 42, {"correlatorId": 2} ]
+            """);
+
+        Assertions.assertEquals(1, reader.next().getInt("correlatorId"));
+        Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+        Assertions.assertEquals(2, reader.next().getInt("correlatorId"));
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("[BULK] Malformed body stops the stream")
+    public void malformedBody(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        TopicStreamReader reader = reader("[ {\"correlatorId\": 1} {\"correlatorId\": 2} ]");
+
+        Assertions.assertEquals(1, reader.next().getInt("correlatorId"));
+        Assertions.assertThrows(JSONException.class, reader::next);
+    }
+
+    private TopicStreamReader reader(String body) {
+        return new TopicStreamReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.kafka;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import com.businessLogic.BulkLogic;
+import com.json.JsonCodec;
+
+@SpringBootTest(classes = { KafkaIngestionConfig.class, PaymentRequestConsumer.class, JsonCodec.class },
+        properties = {
+                "kafka.ingestion.enabled=true",
+                "kafka.ingestion.partitions=1",
+                "kafka.ingestion.concurrency=1",
+                "kafka.ingestion.dead-letter-topic=payment-requests-dlt",
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.group-id=payment-service-dlt-test",
+                "spring.kafka.consumer.auto-offset-reset=earliest",
+                "spring.kafka.consumer.enable-auto-commit=false",
+                "spring.kafka.consumer.key-deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                "spring.kafka.consumer.value-deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
+                "spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.StringSerializer" })
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@EmbeddedKafka(partitions = 1, topics = { "payment-requests", "payment-responses", "payment-requests-dlt" })
+public class PaymentDeadLetterTest {
+    private static final int RECORDS = 3;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @MockitoBean
+    private BulkLogic bulkLogic;
+
+    @Test
+    @DisplayName("[KAFKA] A batch that keeps failing is dead lettered and committed instead of dropped")
+    public void failedBatchIsDeadLettered(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        when(bulkLogic.processBatch(anyList())).thenThrow(new IllegalStateException("database unavailable"));
+
+        Map<String, String> sent = new HashMap<>();
+        for (int i = 1; i <= RECORDS; i++) {
+            String value = """
+                    {"topicName": "PaymentRequest", "correlatorId": %d, "paymentAmount": 10.00,
+                     "email": "user@test.com", "creditCard": "4111111111111111", "cvc": "123"}
+                    """.formatted(i);
+            sent.put(String.valueOf(i), value);
+            kafkaTemplate.send("payment-requests", String.valueOf(i), value);
+        }
+        kafkaTemplate.flush();
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("payment-dlt-reader", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "payment-requests-dlt");
+
+            Map<String, String> deadLetters = new HashMap<>();
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (deadLetters.size() < RECORDS && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(5));
+                for (ConsumerRecord<String, String> record : records) {
+                    deadLetters.put(record.key(), record.value());
+                    Assertions.assertNotNull(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+                    Assertions.assertEquals(0, record.partition());
+                }
+            }
+            // original keys and values, so the dead letters can be replayed as they are
+            Assertions.assertEquals(sent, deadLetters);
+        }
+        // the first delivery and three redeliveries at least
+        verify(bulkLogic, atLeast(4)).processBatch(anyList());
+
+        long committed = -1;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (committed != RECORDS && System.currentTimeMillis() < deadline) {
+            OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(),
+                    "payment-service-dlt-test", "payment-requests", 0);
+            committed = offset == null ? -1 : offset.offset();
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(RECORDS, committed);
+    }
+}
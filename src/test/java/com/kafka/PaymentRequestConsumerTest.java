@@ -0,0 +1,122 @@
+package com.kafka;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import com.businessLogic.BulkLogic;
+import com.json.JsonCodec;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+
+@SpringBootTest(classes = { KafkaIngestionConfig.class, PaymentRequestConsumer.class, JsonCodec.class },
+        properties = {
+                "kafka.ingestion.enabled=true",
+                "kafka.ingestion.partitions=1",
+                "kafka.ingestion.concurrency=1",
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.group-id=payment-service-test",
+                "spring.kafka.consumer.auto-offset-reset=earliest",
+                "spring.kafka.consumer.enable-auto-commit=false",
+                "spring.kafka.consumer.key-deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                "spring.kafka.consumer.value-deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
+                "spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.StringSerializer" })
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@EmbeddedKafka(partitions = 1, topics = { "payment-requests", "payment-responses" })
+public class PaymentRequestConsumerTest {
+    private static final int RECORDS = 5;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @MockitoBean
+    private BulkLogic bulkLogic;
+
+    @Test
+    @DisplayName("[KAFKA] PaymentResponses are published by correlatorId and offsets committed after the batch")
+    public void batchIsAnsweredAndCommitted(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+
+        when(bulkLogic.processBatch(anyList())).thenAnswer(invocation -> {
+            List<JSONObject> topics = invocation.getArgument(0);
+            List<PaymentResponse> responses = new ArrayList<>();
+            for (JSONObject topic : topics) {
+                PaymentResponse response = new PaymentResponse();
+                response.setTopicName("PaymentResponse");
+                if (topic != null) {
+                    response.setCorrelatorId(topic.getInt("correlatorId"));
+                    response.setStatus(Status.SUCCESSFUL);
+                } else {
+                    response.setStatus(Status.FAILED);
+                }
+                responses.add(response);
+            }
+            return responses;
+        });
+
+        for (int i = 1; i < RECORDS; i++) {
+            kafkaTemplate.send("payment-requests", String.valueOf(i), """
+                    {"topicName": "PaymentRequest", "correlatorId": %d, "paymentAmount": 10.00,
+                     "email": "user@test.com", "creditCard": "4111111111111111", "cvc": "123"}
+                    """.formatted(i));
+        }
+        kafkaTemplate.send("payment-requests", "malformed", "{not json");
+        kafkaTemplate.flush();
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("payment-responses-reader", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "payment-responses");
+
+            Set<String> keys = new HashSet<>();
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (keys.size() < RECORDS && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> replies = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(5));
+                for (ConsumerRecord<String, String> reply : replies) {
+                    keys.add(reply.key());
+                    if ("malformed".equals(reply.key())) {
+                        Assertions.assertTrue(new JSONObject(reply.value()).isNull("correlatorId"));
+                    }
+                }
+            }
+            Assertions.assertEquals(Set.of("1", "2", "3", "4", "malformed"), keys);
+        }
+
+        // the offsets are committed once the listener has returned
+        long committed = -1;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (committed != RECORDS && System.currentTimeMillis() < deadline) {
+            OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(),
+                    "payment-service-test", "payment-requests", 0);
+            committed = offset == null ? -1 : offset.offset();
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(RECORDS, committed);
+    }
+}
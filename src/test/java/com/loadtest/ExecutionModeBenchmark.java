@@ -0,0 +1,116 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.web.client.RestClient;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Compares platform threads against virtual threads for the payment request shape: each request
+ * makes three blocking round trips to a slow downstream (AccountInfoRequest, RewardsRequest and
+ * the session-manager lookup). The platform run uses a pool the size of Tomcat's default worker
+ * pool, the virtual run a thread per request.
+ *
+ * Not a unit test, run it directly:
+ *   mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.loadtest.ExecutionModeBenchmark -Dexec.args="2000 1000 50"
+ * args: total requests, requests in flight, downstream latency in ms
+ */
+public class ExecutionModeBenchmark {
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int CALLS_PER_REQUEST = 3;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int downstreamLatencyMs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        HttpServer downstream = startSlowDownstream(downstreamLatencyMs);
+        String url = "http://localhost:" + downstream.getAddress().getPort() + "/api/v1/processTopic";
+        RestClient client = RestClient.create();
+
+        try {
+            // warm up both paths before measuring
+            run("warmup", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), client, url, 200, 200);
+            run("warmup", Executors.newVirtualThreadPerTaskExecutor(), client, url, 200, 200);
+
+            System.out.printf("%d requests, %d in flight, %d calls/request, downstream %d ms%n",
+                    requests, inFlight, CALLS_PER_REQUEST, downstreamLatencyMs);
+            print(run("platform", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), client, url, requests, inFlight));
+            print(run("virtual", Executors.newVirtualThreadPerTaskExecutor(), client, url, requests, inFlight));
+        } finally {
+            downstream.stop(0);
+        }
+    }
+
+    private static Result run(String name, ExecutorService executor, RestClient client, String url,
+            int requests, int inFlight) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(requests);
+        Semaphore window = new Semaphore(inFlight);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            window.acquire();
+            int index = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    for (int call = 0; call < CALLS_PER_REQUEST; call++) {
+                        client.post().uri(url).body("{}").retrieve().body(String.class);
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[index] = System.nanoTime() - submitted;
+                    window.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        return new Result(name, requests * 1e9 / elapsed, latencies[requests / 2] / 1e6,
+                latencies[(int) (requests * 0.99) - 1] / 1e6, failures.get());
+    }
+
+    private static HttpServer startSlowDownstream(int latencyMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 4096);
+        byte[] body = "{\"topicName\":\"AccountInfoResponse\"}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/api/v1/processTopic", exchange -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return server;
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%-9s throughput %8.1f req/s   p50 %8.1f ms   p99 %8.1f ms   failures %d%n",
+                result.name(), result.throughput(), result.p50Ms(), result.p99Ms(), result.failures());
+    }
+
+    private record Result(String name, double throughput, double p50Ms, double p99Ms, int failures) {}
+}
@@ -0,0 +1,157 @@
+package com.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.json.JSONObject;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import com.businessLogic.BulkLogic;
+import com.json.JsonCodec;
+import com.kafka.PaymentRequestConsumer;
+import com.topics.PaymentResponse;
+import com.topics.PaymentResponse.Status;
+
+/*
+ * Throughput of the Kafka ingestion path against the batch size (max-poll-records). Runs the real
+ * PaymentRequestConsumer on an embedded broker: parse, reply publishing, waiting for the acks and
+ * the offset commit after each batch. BulkLogic is a stub that models the storage cost, one
+ * commit-ms per batch (the group commit) plus record-us per payment, so the numbers show how the
+ * batch size amortises the per-batch costs, not end-to-end payment throughput (PaymentLoadHarness
+ * covers that).
+ *
+ * Not a unit test, run it directly:
+ *   mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.loadtest.KafkaBatchBenchmark -Dexec.args="20000 1,10,50,200,500 5 50"
+ * args: records per run, batch sizes, commit-ms, record-us
+ */
+public class KafkaBatchBenchmark {
+    private static final String REQUEST_TOPIC = "payment-requests";
+    private static final String REPLY_TOPIC = "payment-responses";
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String[] batchSizes = (args.length > 1 ? args[1] : "1,10,50,200,500").split(",");
+        int commitMs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int recordUs = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 1, REQUEST_TOPIC, REPLY_TOPIC);
+        broker.afterPropertiesSet();
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.LINGER_MS_CONFIG, 5),
+                new StringSerializer(), new StringSerializer());
+        try {
+            KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+            PaymentRequestConsumer consumer = new PaymentRequestConsumer(new StubBulkLogic(commitMs, recordUs),
+                    new JsonCodec(), kafkaTemplate, REPLY_TOPIC, 30_000);
+
+            produce(kafkaTemplate, records);
+            // warm up the consumer, producer and JIT before measuring
+            run(broker, consumer, 100, records);
+
+            System.out.printf("%d records per run, modelled commit %d ms per batch + %d us per record%n",
+                    records, commitMs, recordUs);
+            for (String batchSize : batchSizes) {
+                print(run(broker, consumer, Integer.parseInt(batchSize.trim()), records));
+            }
+        } finally {
+            producerFactory.destroy();
+            broker.destroy();
+        }
+    }
+
+    private static void produce(KafkaTemplate<String, String> kafkaTemplate, int records) {
+        for (int i = 0; i < records; i++) {
+            kafkaTemplate.send(REQUEST_TOPIC, String.valueOf(i), """
+                    {"topicName": "PaymentRequest", "correlatorId": %d, "paymentAmount": 25.50,
+                     "email": "user@bench.test", "creditCard": "4111111111111111", "cvc": "123"}
+                    """.formatted(i));
+        }
+        kafkaTemplate.flush();
+    }
+
+    // a fresh consumer group per run reads the same records from the start
+    private static Result run(EmbeddedKafkaKraftBroker broker, PaymentRequestConsumer paymentConsumer,
+            int batchSize, int records) throws Exception {
+        Map<String, Object> props = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ConsumerConfig.GROUP_ID_CONFIG, "bench-" + UUID.randomUUID(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of(REQUEST_TOPIC));
+            int consumed = 0;
+            int batches = 0;
+            long start = System.nanoTime();
+            while (consumed < records) {
+                ConsumerRecords<String, String> polled = consumer.poll(Duration.ofSeconds(1));
+                if (polled.isEmpty()) {
+                    continue;
+                }
+                List<ConsumerRecord<String, String>> batch = new ArrayList<>(polled.count());
+                polled.forEach(batch::add);
+                paymentConsumer.consume(batch);
+                consumer.commitSync();
+                consumed += batch.size();
+                batches++;
+            }
+            long elapsed = System.nanoTime() - start;
+            return new Result(batchSize, consumed * 1e9 / elapsed, elapsed / 1e6 / batches, batches);
+        }
+    }
+
+    private static void print(Result result) {
+        System.out.printf("batch %4d   throughput %9.1f records/s   %7.2f ms/batch   %d batches%n",
+                result.batchSize(), result.throughput(), result.msPerBatch(), result.batches());
+    }
+
+    // answers every payment SUCCESSFUL after the modelled storage cost
+    private static final class StubBulkLogic extends BulkLogic {
+        private final int commitMs;
+        private final int recordUs;
+
+        StubBulkLogic(int commitMs, int recordUs) {
+            super(null, null, null, (Executor) Runnable::run, 1);
+            this.commitMs = commitMs;
+            this.recordUs = recordUs;
+        }
+
+        @Override
+        public List<PaymentResponse> processBatch(List<JSONObject> topics) {
+            List<PaymentResponse> responses = new ArrayList<>(topics.size());
+            for (JSONObject topic : topics) {
+                PaymentResponse response = new PaymentResponse();
+                response.setTopicName("PaymentResponse");
+                response.setCorrelatorId(topic.getInt("correlatorId"));
+                response.setPaymentAmount(topic.getDouble("paymentAmount"));
+                response.setStatus(Status.SUCCESSFUL);
+                responses.add(response);
+            }
+            try {
+                TimeUnit.MICROSECONDS.sleep(commitMs * 1000L + (long) recordUs * topics.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return responses;
+        }
+    }
+
+    private record Result(int batchSize, double throughput, double msPerBatch, int batches) {}
+}
@@ -0,0 +1,254 @@
+package com.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import com.SpringBootConsoleApplication;
+
+/*
+ * Offline end-to-end load test. Boots the payment-service against StubDownstreams and a Postgres
+ * (a Testcontainers one by default, or any database given by db=<jdbc url>) and drives
+ * /api/v1/processTopic, then prints HdrHistogram latency percentiles and throughput.
+ *
+ * Not a unit test, run it directly:
+ *   mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.loadtest.PaymentLoadHarness -Dexec.args="rate=500 duration-s=60"
+ *
+ * args (key=value):
+ *   rate             requests per second, 0 sends as fast as concurrency allows      default 200
+ *   concurrency      max requests in flight                                           default 64
+ *   duration-s       measured run length                                              default 30
+ *   warmup-s         unmeasured run before it                                         default 10
+ *   rewards-ratio    share of payments by users with reward points                    default 0.5
+ *   unknown-ratio    share of payments by emails the user-management stub doesn't know default 0.05
+ *   stub-latency-ms  latency of every stub response                                   default 5
+ *   stub-jitter-ms   extra random latency up to this                                  default 0
+ *   stub-error-rate  share of stub responses that are a 503                           default 0
+ *   db               testcontainers or a jdbc:postgresql url (db-user, db-password)    default testcontainers
+ *   stack            servlet or reactive processing stack                             default servlet
+ *
+ * With a rate the schedule is open loop, latency is measured from when a request was due rather
+ * than when it was sent so a stalled service shows up in the tail (no coordinated omission).
+ *
+ * To compare the stacks on the same machine run both with the same high concurrency and stub
+ * latency, e.g. rate=0 concurrency=2000 stub-latency-ms=50 stack=servlet|reactive, and compare the
+ * throughput per core.
+ */
+public class PaymentLoadHarness {
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int durationS = Integer.parseInt(options.getOrDefault("duration-s", "30"));
+        int warmupS = Integer.parseInt(options.getOrDefault("warmup-s", "10"));
+        double rewardsRatio = Double.parseDouble(options.getOrDefault("rewards-ratio", "0.5"));
+        double unknownRatio = Double.parseDouble(options.getOrDefault("unknown-ratio", "0.05"));
+        int stubLatencyMs = Integer.parseInt(options.getOrDefault("stub-latency-ms", "5"));
+        int stubJitterMs = Integer.parseInt(options.getOrDefault("stub-jitter-ms", "0"));
+        double stubErrorRate = Double.parseDouble(options.getOrDefault("stub-error-rate", "0"));
+        String db = options.getOrDefault("db", "testcontainers");
+        String stack = options.getOrDefault("stack", "servlet");
+
+        PostgreSQLContainer<?> postgres = null;
+        try (StubDownstreams stubs = new StubDownstreams(stubLatencyMs, stubJitterMs, stubErrorRate)) {
+            String jdbcUrl = db;
+            String dbUser = options.getOrDefault("db-user", "user");
+            String dbPassword = options.getOrDefault("db-password", "password");
+            if ("testcontainers".equals(db)) {
+                postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+                postgres.start();
+                jdbcUrl = postgres.getJdbcUrl();
+                dbUser = postgres.getUsername();
+                dbPassword = postgres.getPassword();
+            }
+
+            ConfigurableApplicationContext service = new SpringApplicationBuilder(SpringBootConsoleApplication.class)
+                    .profiles("dev")
+                    .run(serviceArgs(stack, stubs.getPort(), jdbcUrl, dbUser, dbPassword));
+            try {
+                int port = ((WebServerApplicationContext) service).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + "/api/v1/processTopic");
+                Load load = new Load(uri, rate, concurrency, rewardsRatio, unknownRatio);
+
+                System.out.printf("%nWarming up for %d s...%n", warmupS);
+                load.run(Duration.ofSeconds(warmupS));
+                long stubRequests = stubs.getRequests();
+                long stubErrors = stubs.getErrors();
+
+                System.out.printf("Measuring for %d s: %s stack, rate %s, concurrency %d, rewards %.2f, unknown %.2f, "
+                        + "stub latency %d+%d ms, stub errors %.3f%n", durationS, stack, rate == 0 ? "max" : rate + "/s",
+                        concurrency, rewardsRatio, unknownRatio, stubLatencyMs, stubJitterMs, stubErrorRate);
+                Result result = load.run(Duration.ofSeconds(durationS));
+                print(result, stubs.getRequests() - stubRequests, stubs.getErrors() - stubErrors);
+            } finally {
+                service.close();
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+
+    // passed as command line args so they win over application-dev.properties
+    private static String[] serviceArgs(String stack, int stubPort, String jdbcUrl, String user, String password) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.main.web-application-type", stack);
+        properties.put("spring.docker.compose.enabled", false);
+        properties.put("user.management.service", "localhost");
+        properties.put("user.management.service.port", stubPort);
+        properties.put("session.manager", "localhost");
+        properties.put("session.manager.port", stubPort);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", user);
+        properties.put("spring.datasource.password", password);
+        // same database for the reactive stack, without the JDBC driver options
+        properties.put("spring.r2dbc.url", "r2dbc:" + jdbcUrl.substring("jdbc:".length()).replaceFirst("\\?.*$", ""));
+        properties.put("spring.r2dbc.username", user);
+        properties.put("spring.r2dbc.password", password);
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("logging.level.com", "WARN");
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    // one load generator, reused for the warmup and the measured run
+    private static final class Load {
+        private final HttpClient client;
+        private final URI uri;
+        private final int rate;
+        private final int concurrency;
+        private final double rewardsRatio;
+        private final double unknownRatio;
+        private final AtomicLong correlatorIds = new AtomicLong(ThreadLocalRandom.current().nextInt(1, 1_000_000));
+
+        Load(URI uri, int rate, int concurrency, double rewardsRatio, double unknownRatio) {
+            this.client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            this.uri = uri;
+            this.rate = rate;
+            this.concurrency = concurrency;
+            this.rewardsRatio = rewardsRatio;
+            this.unknownRatio = unknownRatio;
+        }
+
+        Result run(Duration duration) throws InterruptedException {
+            Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+            Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+            LongAdder failures = new LongAdder();
+            Semaphore inFlight = new Semaphore(concurrency);
+
+            long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+            long start = System.nanoTime();
+            long end = start + duration.toNanos();
+            long sent = 0;
+
+            // closing the executor waits for the requests still in flight
+            try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+                while (true) {
+                    long scheduled = start + sent * intervalNanos;
+                    if (intervalNanos > 0 && scheduled >= end || intervalNanos == 0 && System.nanoTime() >= end) {
+                        break;
+                    }
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    inFlight.acquire();
+                    // open loop: due when scheduled, closed loop: due once a slot is free
+                    long due = intervalNanos > 0 ? scheduled : System.nanoTime();
+                    sent++;
+                    HttpRequest request = request();
+                    senders.execute(() -> {
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            statuses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+                        } catch (Exception e) {
+                            failures.increment();
+                        } finally {
+                            latencies.recordValue(Math.min(System.nanoTime() - due, MAX_LATENCY_NANOS));
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+            return new Result(sent, System.nanoTime() - start, latencies, statuses, failures.sum());
+        }
+
+        private HttpRequest request() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double mix = random.nextDouble();
+            String prefix = mix < unknownRatio ? "unknown-" : mix < unknownRatio + rewardsRatio ? "rewards-" : "plain-";
+            // a small pool of users per kind so the account cache sees repeat customers
+            String email = prefix + random.nextInt(1000) + "@load.test";
+            String body = """
+                {"topicName": "PaymentRequest", "correlatorId": %d, "paymentAmount": %d.%02d,
+                 "email": "%s", "creditCard": "4111111111111111", "cvc": "123"}
+                """.formatted(correlatorIds.incrementAndGet(), random.nextInt(1, 500), random.nextInt(100), email);
+            return HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    }
+
+    private static void print(Result result, long stubRequests, long stubErrors) {
+        Histogram h = result.latencies();
+        double seconds = result.elapsedNanos() / 1e9;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%nrequests %d in %.1f s, throughput %.1f req/s, %.1f req/s per core (%d cores)%n",
+                result.sent(), seconds, h.getTotalCount() / seconds, h.getTotalCount() / seconds / cores, cores);
+        System.out.printf("status   %s, transport failures %d, stub requests %d, stub errors %d%n",
+                result.statuses(), result.failures(), stubRequests, stubErrors);
+        System.out.printf("latency  p50 %.2f ms  p90 %.2f ms  p99 %.2f ms  p99.9 %.2f ms  max %.2f ms%n",
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        System.out.println("\nLatency distribution (ms):");
+        h.outputPercentileDistribution(System.out, 5, 1_000_000.0);
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private record Result(long sent, long elapsedNanos, Histogram latencies, Map<Integer, LongAdder> statuses,
+            long failures) {}
+}
@@ -0,0 +1,202 @@
+package com.loadtest;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import org.flywaydb.core.Flyway;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/*
+ * Queries and inserts of the partitioned payments table (V8 migration) with a long history. Runs
+ * the migrations on a Testcontainers Postgres, fills the given months with payments and then times
+ * the statements the service runs: a payment history page, a correlatorId lookup, an export range
+ * of one week and of one old month, and batched inserts. The plan of the week range shows how
+ * many partitions it reads.
+ *
+ * Not a unit test, run it directly:
+ *   mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.loadtest.PaymentPartitionBenchmark -Dexec.args="5000000 24 200"
+ * args: payments, months of history, repetitions per query
+ */
+public class PaymentPartitionBenchmark {
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+    private static final int EMAILS = 50_000;
+    private static final long CORRELATOR_BASE = 10_000_000L;
+
+    private static final String HISTORY_PAGE = """
+            SELECT id, correlator_id, payment_amount, cash_amount, reward_cash_applied, initial_time_stamp
+            FROM payment_service.payments
+            WHERE email = ?
+            ORDER BY initial_time_stamp DESC, id DESC
+            LIMIT 21
+            """;
+    private static final String BY_CORRELATOR = """
+            SELECT p.*
+            FROM payment_service.payment_correlators c
+            JOIN payment_service.payments p
+              ON p.id = c.payment_id AND p.initial_time_stamp = c.initial_time_stamp
+            WHERE c.correlator_id = ?
+            """;
+    private static final String RANGE = """
+            SELECT count(*), sum(payment_amount)
+            FROM payment_service.payments
+            WHERE initial_time_stamp >= ? AND initial_time_stamp < ?
+            """;
+    private static final String INSERT = """
+            INSERT INTO payment_service.payments
+                (payment_amount, cash_amount, reward_cash_applied, email, credit_card, cvc, initial_time_stamp, correlator_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    public static void main(String[] args) throws Exception {
+        long payments = args.length > 0 ? Long.parseLong(args[0]) : 5_000_000L;
+        int months = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE)) {
+            postgres.start();
+            Flyway.configure()
+                    .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                    .locations("classpath:db/migration")
+                    .schemas("payment_service")
+                    .createSchemas(true)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+
+            Properties properties = new Properties();
+            properties.setProperty("user", postgres.getUsername());
+            properties.setProperty("password", postgres.getPassword());
+            properties.setProperty("reWriteBatchedInserts", "true");
+            try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), properties)) {
+                long start = System.nanoTime();
+                seed(connection, payments, months);
+                System.out.printf("Seeded %d payments over %d months in %.1f s%n", payments, months,
+                        (System.nanoTime() - start) / 1e9);
+
+                Instant now = Instant.now();
+                Instant weekAgo = now.minus(7, ChronoUnit.DAYS);
+                Instant oldMonth = now.minus(months * 30L / 2, ChronoUnit.DAYS);
+                printPlan(connection, weekAgo, now);
+
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                System.out.printf("%n%-28s %10s %10s %10s%n", "statement", "p50 ms", "p99 ms", "max ms");
+                time("history page", repetitions, connection, HISTORY_PAGE,
+                        statement -> statement.setString(1, email(random.nextInt(EMAILS))));
+                time("correlatorId lookup", repetitions, connection, BY_CORRELATOR,
+                        statement -> statement.setLong(1, CORRELATOR_BASE + random.nextLong(1, payments + 1)));
+                time("range, last 7 days", Math.max(1, repetitions / 10), connection, RANGE, statement -> {
+                    statement.setTimestamp(1, Timestamp.from(weekAgo));
+                    statement.setTimestamp(2, Timestamp.from(now));
+                });
+                time("range, one old month", Math.max(1, repetitions / 10), connection, RANGE, statement -> {
+                    statement.setTimestamp(1, Timestamp.from(oldMonth));
+                    statement.setTimestamp(2, Timestamp.from(oldMonth.plus(30, ChronoUnit.DAYS)));
+                });
+                insert(connection, 100_000, 50, CORRELATOR_BASE + payments + 1);
+            }
+        }
+    }
+
+    // partitions for the history, then the payments spread evenly over it, newest last
+    private static void seed(Connection connection, long payments, int months) throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    SELECT payment_service.create_payment_partition(m)
+                    FROM generate_series(date_trunc('month', now() AT TIME ZONE 'UTC') - make_interval(months => %d),
+                                         now() AT TIME ZONE 'UTC', INTERVAL '1 month') m
+                    """.formatted(months));
+            statement.execute("""
+                    INSERT INTO payment_service.payments
+                        (email, payment_amount, cash_amount, reward_cash_applied, credit_card, cvc, initial_time_stamp, correlator_id)
+                    SELECT 'user-' || (g %% %d) || '@bench.test', 25.00, 25.00, 0, '4111111111111111', '123',
+                           now() - ((%d - g)::double precision / %d) * make_interval(months => %d), %d + g
+                    FROM generate_series(1, %d) g
+                    """.formatted(EMAILS, payments, payments, months, CORRELATOR_BASE, payments));
+            statement.execute("ANALYZE payment_service.payments");
+            statement.execute("ANALYZE payment_service.payment_correlators");
+        }
+    }
+
+    private static void printPlan(Connection connection, Instant from, Instant to) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, COSTS OFF) " + RANGE)) {
+            statement.setTimestamp(1, Timestamp.from(from));
+            statement.setTimestamp(2, Timestamp.from(to));
+            System.out.println("\nPlan of the last 7 days range:");
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    System.out.println("  " + rs.getString(1));
+                }
+            }
+        }
+    }
+
+    private static void time(String name, int repetitions, Connection connection, String sql, Binder binder)
+            throws SQLException {
+        long[] nanos = new long[repetitions];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < repetitions; i++) {
+                binder.bind(statement);
+                long start = System.nanoTime();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        // read every row
+                    }
+                }
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-28s %10.3f %10.3f %10.3f%n", name, nanos[repetitions / 2] / 1e6,
+                nanos[Math.min(repetitions - 1, repetitions * 99 / 100)] / 1e6, nanos[repetitions - 1] / 1e6);
+    }
+
+    // batches of batchSize rows in one transaction each, like the PaymentWriter group commit
+    private static void insert(Connection connection, int rows, int batchSize, long firstCorrelatorId)
+            throws SQLException {
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < rows; i++) {
+                statement.setBigDecimal(1, BigDecimal.valueOf(2500, 2));
+                statement.setBigDecimal(2, BigDecimal.valueOf(2500, 2));
+                statement.setBigDecimal(3, BigDecimal.ZERO);
+                statement.setString(4, email(i % EMAILS));
+                statement.setString(5, "4111111111111111");
+                statement.setString(6, "123");
+                statement.setTimestamp(7, Timestamp.from(Instant.now()));
+                statement.setLong(8, firstCorrelatorId + i);
+                statement.addBatch();
+                if ((i + 1) % batchSize == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%ninserted %d payments in batches of %d: %.0f rows/s%n", rows, batchSize, rows / seconds);
+    }
+
+    private static String email(int n) {
+        return "user-" + n + "@bench.test";
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,89 @@
+package com.loadtest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import com.cache.SessionUserCache;
+
+/*
+ * Session-manager calls made by a burst of concurrent payments looking up the logged in user:
+ * every lookup sent (the old AsyncLogic), SessionUserCache coalescing only (ttl 0), and coalescing
+ * plus the TTL cache. The session-manager is a stub that answers after the given latency.
+ *
+ * Not a unit test, run it directly:
+ *   mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.loadtest.SessionLookupBenchmark -Dexec.args="20000 500 20 1000"
+ * args: total lookups, lookups in flight, session-manager latency in ms, cache ttl in ms
+ */
+public class SessionLookupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int latencyMs = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long ttlMs = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+        // warm up every path before measuring
+        run("warmup", null, 2000, 200, latencyMs);
+        run("warmup", new SessionUserCache(ttlMs), 2000, 200, latencyMs);
+
+        System.out.printf("%d lookups, %d in flight, session-manager %d ms%n", lookups, inFlight, latencyMs);
+        print(run("direct", null, lookups, inFlight, latencyMs));
+        print(run("coalesced", new SessionUserCache(0), lookups, inFlight, latencyMs));
+        print(run("coalesced+ttl " + ttlMs + "ms", new SessionUserCache(ttlMs), lookups, inFlight, latencyMs));
+    }
+
+    private static Result run(String name, SessionUserCache cache, int lookups, int inFlight, int latencyMs)
+            throws InterruptedException {
+        AtomicInteger sessionManagerCalls = new AtomicInteger();
+        AtomicLong totalLatencyNanos = new AtomicLong();
+        Supplier<String> sessionManager = () -> {
+            sessionManagerCalls.incrementAndGet();
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "NO-USER";
+        };
+
+        CountDownLatch done = new CountDownLatch(lookups);
+        Semaphore window = new Semaphore(inFlight);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < lookups; i++) {
+                window.acquire();
+                executor.execute(() -> {
+                    long submitted = System.nanoTime();
+                    try {
+                        if (cache == null) {
+                            sessionManager.get();
+                        } else {
+                            cache.get(sessionManager);
+                        }
+                    } finally {
+                        totalLatencyNanos.addAndGet(System.nanoTime() - submitted);
+                        window.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(name, lookups, sessionManagerCalls.get(), lookups * 1e9 / elapsed,
+                totalLatencyNanos.get() / 1e6 / lookups);
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%-22s session-manager calls %6d (%5.1f%% of lookups)   throughput %9.1f lookups/s   "
+                + "mean %6.2f ms%n", result.name(), result.calls(), 100.0 * result.calls() / result.lookups(),
+                result.throughput(), result.meanMs());
+    }
+
+    private record Result(String name, int lookups, int calls, double throughput, double meanMs) {}
+}
@@ -0,0 +1,220 @@
+package com.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/*
+ * Time from launching the service to its first successful /api/v1/processTopic, the number that
+ * decides how fast a scaled out pod takes traffic. Each mode starts the packaged service as its own
+ * JVM against StubDownstreams and a Postgres, sends a PaymentRequest every poll-ms until one comes
+ * back SUCCESSFUL and stops it again.
+ *
+ * Build the fast-start jar first (it works as a plain jar too, AOT classes are only used with
+ * -Dspring.aot.enabled=true), then run:
+ *   mvn -B -Pfast-start -DskipTests package
+ *   mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.loadtest.StartupBenchmark -Dexec.args="runs=5"
+ *
+ * modes:
+ *   current     java -jar with --debug, ddl-auto=update and Flyway, how the image used to start
+ *   plain       java -jar, ddl-auto=update and Flyway
+ *   fast-start  AOT + CDS archive from the extracted jar, prod profile (no schema update)
+ *
+ * args (key=value):
+ *   modes     comma separated, run in turns so they see the same machine state   default current,plain,fast-start
+ *   runs      measured starts per mode, after one unmeasured start that migrates default 3
+ *   jar       packaged jar                                   default target/payment-service-0.0.1-SNAPSHOT.jar
+ *   cds-dir   extracted jar and .jsa archive of the fast-start build           default target/application
+ *   poll-ms   interval between PaymentRequests while starting                   default 20
+ *   db        testcontainers or a jdbc:postgresql url (db-user, db-password)   default testcontainers
+ */
+public class StartupBenchmark {
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+    private static final String JAR_NAME = "payment-service-0.0.1-SNAPSHOT";
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", "current,plain,fast-start").split(","));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        Path jar = Paths.get(options.getOrDefault("jar", "target/" + JAR_NAME + ".jar"));
+        Path cdsDir = Paths.get(options.getOrDefault("cds-dir", "target/application"));
+        long pollMs = Long.parseLong(options.getOrDefault("poll-ms", "20"));
+        String db = options.getOrDefault("db", "testcontainers");
+
+        PostgreSQLContainer<?> postgres = null;
+        try (StubDownstreams stubs = new StubDownstreams(0, 0, 0)) {
+            String jdbcUrl = db;
+            String dbUser = options.getOrDefault("db-user", "user");
+            String dbPassword = options.getOrDefault("db-password", "password");
+            if ("testcontainers".equals(db)) {
+                postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+                postgres.start();
+                jdbcUrl = postgres.getJdbcUrl();
+                dbUser = postgres.getUsername();
+                dbPassword = postgres.getPassword();
+            }
+            List<String> serviceArgs = serviceArgs(stubs.getPort(), jdbcUrl, dbUser, dbPassword);
+
+            // first start applies the migrations, every measured start finds the schema up to date
+            System.out.println("\nUnmeasured start to migrate the database...");
+            timeToFirstPayment(command("plain", jar, cdsDir, serviceArgs), pollMs, 0);
+
+            Map<String, List<Long>> results = new LinkedHashMap<>();
+            int correlatorId = 1;
+            for (int run = 0; run < runs; run++) {
+                for (String mode : modes) {
+                    long ms = timeToFirstPayment(command(mode, jar, cdsDir, serviceArgs), pollMs, correlatorId++);
+                    System.out.printf("run %d %-10s first successful PaymentRequest after %d ms%n", run + 1, mode, ms);
+                    results.computeIfAbsent(mode, m -> new ArrayList<>()).add(ms);
+                }
+            }
+            print(results);
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+
+    private static List<String> command(String mode, Path jar, Path cdsDir, List<String> serviceArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        switch (mode) {
+            case "current": {
+                command.addAll(List.of("-jar", jar.toString(), "--spring.profiles.active=dev", "--debug"));
+            }
+                break;
+            case "plain": {
+                command.addAll(List.of("-jar", jar.toString(), "--spring.profiles.active=dev"));
+            }
+                break;
+            case "fast-start": {
+                Path archive = cdsDir.resolve(JAR_NAME + ".jsa");
+                if (!Files.exists(archive)) {
+                    throw new IllegalStateException("No CDS archive at " + archive + ", build with -Pfast-start");
+                }
+                command.addAll(List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                        "-jar", cdsDir.resolve(JAR_NAME + ".jar").toString(), "--spring.profiles.active=dev,prod"));
+            }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        command.addAll(serviceArgs);
+        return command;
+    }
+
+    // starts the service and returns the ms until a PaymentRequest succeeded, the service is stopped again
+    private static long timeToFirstPayment(List<String> command, long pollMs, int correlatorId) throws Exception {
+        int port = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        File log = File.createTempFile("payment-service-startup", ".log");
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(500)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/processTopic"))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                    {"topicName": "PaymentRequest", "correlatorId": %d, "paymentAmount": 25.00,
+                     "email": "plain-startup@load.test", "creditCard": "4111111111111111", "cvc": "123"}
+                    """.formatted(1_000_000 + correlatorId)))
+                .build();
+
+        long start = System.nanoTime();
+        Process service = new ProcessBuilder(withPort).redirectErrorStream(true)
+                .redirectOutput(log).start();
+        try {
+            long deadline = start + START_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!service.isAlive()) {
+                    throw new IllegalStateException("Service exited with " + service.exitValue() + ", see " + log);
+                }
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200 && response.body().contains("SUCCESSFUL")) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(pollMs);
+            }
+            throw new IllegalStateException("No successful PaymentRequest within " + START_TIMEOUT + ", see " + log);
+        } finally {
+            service.destroy();
+            if (!service.waitFor(30, TimeUnit.SECONDS)) {
+                service.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // passed as command line args so they win over application-dev.properties
+    private static List<String> serviceArgs(int stubPort, String jdbcUrl, String user, String password) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.docker.compose.enabled", false);
+        properties.put("user.management.service", "localhost");
+        properties.put("user.management.service.port", stubPort);
+        properties.put("session.manager", "localhost");
+        properties.put("session.manager.port", stubPort);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", user);
+        properties.put("spring.datasource.password", password);
+        properties.put("spring.r2dbc.url", "r2dbc:" + jdbcUrl.substring("jdbc:".length()).replaceFirst("\\?.*$", ""));
+        properties.put("spring.r2dbc.username", user);
+        properties.put("spring.r2dbc.password", password);
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toList();
+    }
+
+    private static void print(Map<String, List<Long>> results) {
+        System.out.println("\nTime to first successful /api/v1/processTopic (ms):");
+        System.out.printf("%-10s %8s %8s %8s   %s%n", "mode", "min", "median", "max", "speedup vs " + results.keySet().iterator().next());
+        Long baseline = null;
+        for (Map.Entry<String, List<Long>> result : results.entrySet()) {
+            List<Long> sorted = result.getValue().stream().sorted().toList();
+            long median = sorted.get(sorted.size() / 2);
+            if (baseline == null) {
+                baseline = median;
+            }
+            System.out.printf("%-10s %8d %8d %8d   %.2fx%n", result.getKey(), sorted.get(0), median,
+                    sorted.get(sorted.size() - 1), (double) baseline / median);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,144 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.topics.AccountInfoResponse;
+import com.topics.RewardsResponse;
+
+/*
+ * In-process stand-ins for the user-management-service (/api/v1/processTopic) and the
+ * session-manager (/api/v1/user) on one HTTP server.
+ *
+ * Accounts are derived from the email so the load generator controls the payload mix:
+ *   rewards-*   account with REWARD_POINTS reward points
+ *   plain-*     account without reward points
+ *   unknown-*   no account, empty AccountInfoResponse body
+ * Every response waits latencyMs plus up to jitterMs and fails with a 503 at errorRate.
+ */
+public class StubDownstreams implements AutoCloseable {
+    public static final int REWARD_POINTS = 5000;
+    public static final String SESSION_USER = "loadtest";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final int latencyMs;
+    private final int jitterMs;
+    private final double errorRate;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public StubDownstreams(int latencyMs, int jitterMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        server.createContext("/api/v1/processTopic", this::userManagement);
+        server.createContext("/api/v1/user", this::sessionManager);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    private void userManagement(HttpExchange exchange) throws IOException {
+        JsonNode topic = objectMapper.readTree(exchange.getRequestBody());
+        if (degrade(exchange)) {
+            return;
+        }
+
+        String email = topic.path("email").asText();
+        Object response;
+        switch (topic.path("topicName").asText()) {
+            case "AccountInfoRequest": {
+                response = email.startsWith("unknown-") ? null : account(topic, email);
+            }
+                break;
+            case "RewardsRequest": {
+                RewardsResponse rewardsResponse = new RewardsResponse();
+                rewardsResponse.setTopicName("RewardsResponse");
+                rewardsResponse.setCorrelatorId(topic.path("correlatorId").asInt());
+                rewardsResponse.setEmail(email);
+                rewardsResponse.setUsername(topic.path("username").asText());
+                rewardsResponse.setRewardPoints(topic.path("rewardPoints").asInt());
+                rewardsResponse.setApplication(RewardsResponse.Application.SUCCESS);
+                response = rewardsResponse;
+            }
+                break;
+            default:
+                response = null;
+        }
+        send(exchange, 200, response == null ? new byte[0] : objectMapper.writeValueAsBytes(response));
+    }
+
+    private void sessionManager(HttpExchange exchange) throws IOException {
+        if (degrade(exchange)) {
+            return;
+        }
+        send(exchange, 200, SESSION_USER.getBytes());
+    }
+
+    private AccountInfoResponse account(JsonNode topic, String email) {
+        AccountInfoResponse account = new AccountInfoResponse();
+        account.setTopicName("AccountInfoResponse");
+        account.setCorrelatorId(topic.path("correlatorId").asInt());
+        account.setName("Load Test");
+        account.setUsername(SESSION_USER);
+        account.setEmail(email);
+        account.setRewardPoints(email.startsWith("rewards-") ? REWARD_POINTS : 0);
+        account.setCreditCard("4111111111111111");
+        account.setCvc("123");
+        return account;
+    }
+
+    // applies the configured latency, returns true when the request was answered with an error
+    private boolean degrade(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(latencyMs + (jitterMs > 0 ? random.nextInt(jitterMs + 1) : 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            send(exchange, 503, new byte[0]);
+            return true;
+        }
+        return false;
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
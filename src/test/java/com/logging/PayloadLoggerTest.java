@@ -0,0 +1,35 @@
+package com.logging;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class PayloadLoggerTest {
+
+    @Test
+    @DisplayName("[LOGGING] Card number and cvc are redacted from logged payloads")
+    public void redactsCardData(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        JSONObject payload = new JSONObject("""
+            {
+                "topicName": "PaymentRequest",
+                "correlatorId": 987654,
+                "paymentAmount": 120.50,
+                "email": "test.user@example.com",
+                "creditCard": "4111111111111111",
+                "cvc": "123"
+            }
+        """);
+
+        JSONObject redacted = PayloadLogger.redact(payload);
+
+        Assertions.assertEquals("************1111", redacted.getString("creditCard"));
+        Assertions.assertEquals("***", redacted.getString("cvc"));
+        Assertions.assertEquals(987654, redacted.getInt("correlatorId"));
+        Assertions.assertFalse(redacted.toString().contains("4111111111111111"));
+        // the payload being processed is left as it was
+        Assertions.assertEquals("4111111111111111", payload.getString("creditCard"));
+    }
+}
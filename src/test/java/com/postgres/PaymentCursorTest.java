@@ -0,0 +1,40 @@
+package com.postgres;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class PaymentCursorTest {
+
+    @Test
+    @DisplayName("[PAYMENT_HISTORY] A cursor decodes to the position it was encoded from")
+    public void roundTrip(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentCursor cursor = new PaymentCursor(Instant.parse("2025-11-12T21:35:00.123456Z"), 4_000_000_123L);
+
+        String encoded = cursor.encode();
+
+        Assertions.assertEquals(cursor, PaymentCursor.decode(encoded));
+        // opaque and safe in a query string
+        Assertions.assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_HISTORY] Malformed cursors are rejected as invalid arguments")
+    public void malformedCursor(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PaymentCursor.decode("not a cursor!"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PaymentCursor.decode(encode("2025-11-12T21:35:00Z")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PaymentCursor.decode(encode("yesterday|42")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PaymentCursor.decode(encode("2025-11-12T21:35:00Z|x")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PaymentCursor.decode(null));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
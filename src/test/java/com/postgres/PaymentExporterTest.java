@@ -0,0 +1,128 @@
+package com.postgres;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import com.postgres.PaymentExporter.Filter;
+import com.postgres.PaymentExporter.Format;
+
+public class PaymentExporterTest {
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        // two rows, the second without a correlatorId and with an email that needs quoting
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong(1)).thenReturn(101L, 102L);
+        when(resultSet.getLong(2)).thenReturn(5001L, 0L);
+        when(resultSet.wasNull()).thenReturn(false, true);
+        when(resultSet.getString(3)).thenReturn("alice@example.com", "bob,\"the builder\"@example.com");
+        when(resultSet.getBigDecimal(4)).thenReturn(new BigDecimal("12.34"), new BigDecimal("122.21"));
+        when(resultSet.getBigDecimal(5)).thenReturn(new BigDecimal("12.34"), new BigDecimal("100.00"));
+        when(resultSet.getBigDecimal(6)).thenReturn(new BigDecimal("0.00"), new BigDecimal("22.21"));
+        when(resultSet.getString(7)).thenReturn("0366", "0009");
+        when(resultSet.getObject(8, OffsetDateTime.class)).thenReturn(
+                OffsetDateTime.parse("2025-11-11T01:30Z"), OffsetDateTime.parse("2025-11-12T21:30Z"));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_EXPORT] CSV export writes the header and one line per row")
+    public void csvExport(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentExporter exporter = new PaymentExporter(dataSource, transactionManager, 1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(Format.CSV, new Filter(null, null, null), false, out);
+
+        Assertions.assertEquals(2, rows);
+        Assertions.assertEquals("""
+                id,correlatorId,email,paymentAmount,cashAmount,rewardCashApplied,cardLast4,initialTimeStamp
+                101,5001,alice@example.com,12.34,12.34,0.00,0366,2025-11-11T01:30Z
+                102,,"bob,""the builder""@example.com",122.21,100.00,22.21,0009,2025-11-12T21:30Z
+                """, out.toString(StandardCharsets.UTF_8));
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        Assertions.assertFalse(sql.getValue().contains("WHERE"));
+        Assertions.assertFalse(sql.getValue().contains("cvc"));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_EXPORT] Filters become bound predicates of a read-only cursor query")
+    public void filteredExportUsesReadOnlyCursor(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentExporter exporter = new PaymentExporter(dataSource, transactionManager, 250);
+        Instant from = Instant.parse("2025-11-01T00:00:00Z");
+        Instant to = Instant.parse("2025-12-01T00:00:00Z");
+
+        long rows = exporter.export(Format.NDJSON, new Filter("alice@example.com", from, to), false,
+                new ByteArrayOutputStream());
+
+        Assertions.assertEquals(2, rows);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        Assertions.assertTrue(sql.getValue().endsWith(
+                " WHERE email = ? AND initial_time_stamp >= ? AND initial_time_stamp < ?"));
+        verify(statement).setString(1, "alice@example.com");
+        verify(statement).setTimestamp(2, Timestamp.from(from));
+        verify(statement).setTimestamp(3, Timestamp.from(to));
+
+        // rows arrive fetch-size at a time, which Postgres only does inside a transaction
+        verify(statement).setFetchSize(250);
+        ArgumentCaptor<TransactionDefinition> transaction = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(transaction.capture());
+        Assertions.assertTrue(transaction.getValue().isReadOnly());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_EXPORT] NDJSON export writes one object per line")
+    public void ndjsonExport(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentExporter exporter = new PaymentExporter(dataSource, transactionManager, 1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(Format.NDJSON, new Filter(null, null, null), false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals("{\"id\":101,\"correlatorId\":5001,\"email\":\"alice@example.com\",\"paymentAmount\":12.34,"
+                + "\"cashAmount\":12.34,\"rewardCashApplied\":0.00,\"cardLast4\":\"0366\",\"initialTimeStamp\":\"2025-11-11T01:30Z\"}",
+                lines[0]);
+        Assertions.assertTrue(lines[1].contains("\"correlatorId\":null"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.postgres;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import com.postgres.models.Payment;
+import com.postgres.models.PaymentHistoryView;
+
+/*
+ * The history queries are native, so the camelCase aliases and the timestamptz -> Instant mapping
+ * of the PaymentHistoryView projection only show up against Postgres. Skipped without a Docker daemon.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.schemas=payment_service",
+        "spring.flyway.create-schemas=true",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=0",
+        "spring.jpa.hibernate.ddl-auto=none" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("dockerAvailable")
+public class PaymentHistoryRepositoryTest {
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+    private static final String EMAIL = "history.user@example.com";
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    static boolean dockerAvailable() {
+        return DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_HISTORY] History pages map every projected column and continue after the cursor")
+    public void historyProjection(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Payment oldest = paymentRepository.save(payment(72_000_001L, now.minusSeconds(3)));
+        Payment middle = paymentRepository.save(payment(72_000_002L, now.minusSeconds(2)));
+        Payment newest = paymentRepository.save(payment(72_000_003L, now.minusSeconds(1)));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<PaymentHistoryView> firstPage = paymentRepository.findHistoryFirstPage(EMAIL, 2);
+
+        Assertions.assertEquals(List.of(newest.getId(), middle.getId()),
+                firstPage.stream().map(PaymentHistoryView::getId).toList());
+        PaymentHistoryView first = firstPage.get(0);
+        Assertions.assertEquals(72_000_003L, first.getCorrelatorId());
+        Assertions.assertEquals(0, new BigDecimal("125.00").compareTo(first.getPaymentAmount()));
+        Assertions.assertEquals(0, new BigDecimal("100.00").compareTo(first.getCashAmount()));
+        Assertions.assertEquals(0, new BigDecimal("25.00").compareTo(first.getRewardCashApplied()));
+        Assertions.assertEquals(newest.getInitialTimeStamp(), first.getInitialTimeStamp());
+
+        PaymentHistoryView last = firstPage.get(1);
+        List<PaymentHistoryView> nextPage = paymentRepository.findHistoryPageAfter(EMAIL,
+                last.getInitialTimeStamp(), last.getId(), 2);
+
+        Assertions.assertEquals(List.of(oldest.getId()), nextPage.stream().map(PaymentHistoryView::getId).toList());
+        Assertions.assertEquals(oldest.getInitialTimeStamp(), nextPage.get(0).getInitialTimeStamp());
+    }
+
+    private static Payment payment(long correlatorId, Instant timeStamp) {
+        Payment payment = new Payment(new BigDecimal("125.00"), new BigDecimal("100.00"), new BigDecimal("25.00"),
+                EMAIL, "4111111111111111", "123", correlatorId);
+        payment.setInitialTimeStamp(timeStamp);
+        return payment;
+    }
+}
@@ -0,0 +1,206 @@
+package com.postgres;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import com.postgres.models.Payment;
+
+/*
+ * Runs every Flyway migration (V8 partitioning, V9 summaries, V10 claims) on a Testcontainers Postgres and
+ * checks the partitioned payments table through the repository. Skipped without a Docker daemon.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.schemas=payment_service",
+        "spring.flyway.create-schemas=true",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=0",
+        "spring.jpa.hibernate.ddl-auto=none" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("dockerAvailable")
+public class PaymentPartitionIntegrationTest {
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    static boolean dockerAvailable() {
+        return DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_PARTITIONS] A new payment is stored in the partition of the current month")
+    public void insertsIntoCurrentMonth(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Payment saved = paymentRepository.saveAndFlush(payment(71_000_001L, Instant.now()));
+
+        String partition = jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM payment_service.payments WHERE id = ?", String.class, saved.getId());
+        Assertions.assertEquals("payment_service.payments_" + YearMonth.now(ZoneOffset.UTC).format(PARTITION_MONTH),
+                partition);
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_PARTITIONS] A second payment with the same correlatorId is rejected")
+    public void rejectsDuplicateCorrelatorId(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        paymentRepository.saveAndFlush(payment(71_000_002L, Instant.now()));
+
+        // a different month, so only payment_correlators can see the duplicate
+        YearMonth lastMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(1);
+        createPartition(lastMonth);
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> paymentRepository.saveAndFlush(payment(71_000_002L,
+                        lastMonth.atDay(15).atStartOfDay(ZoneOffset.UTC).toInstant())));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_PARTITIONS] findByCorrelatorId finds the payment through payment_correlators")
+    public void findsByCorrelatorId(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Payment saved = paymentRepository.saveAndFlush(payment(71_000_003L, Instant.now()));
+        entityManager.clear();
+
+        Optional<Payment> found = paymentRepository.findByCorrelatorId(71_000_003L);
+
+        Assertions.assertTrue(found.isPresent());
+        Assertions.assertEquals(saved.getId(), found.get().getId());
+        Assertions.assertEquals(saved.getInitialTimeStamp().truncatedTo(ChronoUnit.MICROS),
+                found.get().getInitialTimeStamp());
+        Assertions.assertTrue(paymentRepository.findByCorrelatorId(71_000_999L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_PARTITIONS] A claimed correlatorId is completed by its payment and claimed only once")
+    public void claimsCorrelatorId(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertEquals(1, paymentRepository.claimCorrelatorId(71_000_005L, 300));
+        Assertions.assertEquals(0, paymentRepository.claimCorrelatorId(71_000_005L, 300));
+        Assertions.assertEquals(Optional.of(false), paymentRepository.isCorrelatorIdStored(71_000_005L));
+
+        Payment saved = paymentRepository.saveAndFlush(payment(71_000_005L, Instant.now()));
+        entityManager.clear();
+
+        Assertions.assertEquals(Optional.of(true), paymentRepository.isCorrelatorIdStored(71_000_005L));
+        Assertions.assertEquals(0, paymentRepository.releaseCorrelatorId(71_000_005L));
+        Assertions.assertEquals(saved.getId(), paymentRepository.findByCorrelatorId(71_000_005L).get().getId());
+
+        // an abandoned claim is released, the next request claims it again
+        Assertions.assertEquals(1, paymentRepository.claimCorrelatorId(71_000_006L, 300));
+        Assertions.assertEquals(1, paymentRepository.releaseCorrelatorId(71_000_006L));
+        Assertions.assertEquals(1, paymentRepository.claimCorrelatorId(71_000_006L, 300));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_PARTITIONS] Maintenance creates the months ahead and drops the expired ones")
+    public void maintainsPartitions(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        YearMonth thisMonth = YearMonth.now(ZoneOffset.UTC);
+        YearMonth expired = thisMonth.minusMonths(30);
+        YearMonth retained = thisMonth.minusMonths(5);
+        createPartition(expired);
+        createPartition(retained);
+        Instant expiredTime = expired.atDay(10).atStartOfDay(ZoneOffset.UTC).toInstant();
+        paymentRepository.saveAndFlush(payment(71_000_004L, expiredTime));
+
+        // the migration created the current month and three ahead (and the months of its seed rows)
+        List<String> before = partitions();
+        long missing = IntStream.rangeClosed(0, 5)
+                .filter(i -> !before.contains(partitionName(thisMonth.plusMonths(i)))).count();
+        long endedBeforeCutoff = before.stream()
+                .filter(name -> !YearMonth.parse(name.substring(9), PARTITION_MONTH).plusMonths(1)
+                        .isAfter(thisMonth.minusMonths(24)))
+                .count();
+
+        Map<String, Object> result = jdbcTemplate.queryForMap(
+                "SELECT created, dropped FROM payment_service.maintain_payment_partitions(?, ?)", 5, 24);
+
+        Assertions.assertTrue(missing >= 2);
+        Assertions.assertTrue(endedBeforeCutoff >= 1);
+        Assertions.assertEquals(missing, ((Number) result.get("created")).longValue());
+        Assertions.assertEquals(endedBeforeCutoff, ((Number) result.get("dropped")).longValue());
+        List<String> partitions = partitions();
+        Assertions.assertFalse(partitions.contains(partitionName(expired)));
+        Assertions.assertTrue(partitions.contains(partitionName(retained)));
+        for (int i = 0; i <= 5; i++) {
+            Assertions.assertTrue(partitions.contains(partitionName(thisMonth.plusMonths(i))));
+        }
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM payment_service.payment_correlators WHERE correlator_id = ?", Integer.class,
+                71_000_004L));
+
+        // a second run has nothing left to do, retention 0 never drops
+        Map<String, Object> again = jdbcTemplate.queryForMap(
+                "SELECT created, dropped FROM payment_service.maintain_payment_partitions(?, ?)", 5, 0);
+        Assertions.assertEquals(0, ((Number) again.get("created")).intValue());
+        Assertions.assertEquals(0, ((Number) again.get("dropped")).intValue());
+        Assertions.assertTrue(partitions().contains(partitionName(retained)));
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.queryForObject("SELECT payment_service.create_payment_partition(CAST(? AS TIMESTAMP))",
+                Boolean.class, month.atDay(1).toString());
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'payment_service.payments'::regclass
+                """, String.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "payments_" + month.format(PARTITION_MONTH);
+    }
+
+    private static Payment payment(long correlatorId, Instant timeStamp) {
+        Payment payment = new Payment(new BigDecimal("125.00"), new BigDecimal("100.00"), new BigDecimal("25.00"),
+                "partition.user@example.com", "4111111111111111", "123", correlatorId);
+        payment.setInitialTimeStamp(timeStamp);
+        return payment;
+    }
+}
@@ -0,0 +1,261 @@
+package com.postgres;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.mockito.ArgumentMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import com.postgres.models.Payment;
+
+public class PaymentWriterTest {
+    private final AtomicLong ids = new AtomicLong(1000);
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    private PaymentRepository paymentRepository;
+    private PlatformTransactionManager transactionManager;
+    private PaymentWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (writer != null && writer.isRunning()) {
+            writer.stop();
+        }
+        callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_WRITER] Concurrent payments are inserted as one batch")
+    public void groupsConcurrentPayments(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        when(paymentRepository.saveAll(ArgumentMatchers.<Payment>anyIterable())).thenAnswer(invocation -> saveAll(invocation.getArgument(0)));
+        writer = start(100, 5, 2000, 2000);
+
+        List<CompletableFuture<Payment>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(writeAsync(payment(i)));
+        }
+
+        for (CompletableFuture<Payment> result : results) {
+            Assertions.assertNotNull(result.get(5, TimeUnit.SECONDS).getId());
+        }
+        Assertions.assertEquals(List.of(5), batchSizes);
+        Assertions.assertEquals(1, writer.getStats().commits());
+        Assertions.assertEquals(5, writer.getStats().inserts());
+        verify(paymentRepository, never()).save(any(Payment.class));
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_WRITER] A failed batch is retried one payment at a time")
+    public void retriesFailedBatchOneByOne(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        when(paymentRepository.saveAll(ArgumentMatchers.<Payment>anyIterable())).thenThrow(new IllegalStateException("constraint violated"));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            if (payment.getCorrelatorId() == 1L) {
+                throw new IllegalStateException("constraint violated");
+            }
+            payment.setId(ids.incrementAndGet());
+            return payment;
+        });
+        writer = start(100, 2, 2000, 2000);
+
+        CompletableFuture<Payment> good = writeAsync(payment(0));
+        CompletableFuture<Payment> bad = writeAsync(payment(1));
+
+        Assertions.assertNotNull(good.get(5, TimeUnit.SECONDS).getId());
+        Assertions.assertNull(bad.get(5, TimeUnit.SECONDS).getId());
+        verify(paymentRepository, times(2)).save(any(Payment.class));
+        Assertions.assertEquals(1, writer.getStats().inserts());
+        Assertions.assertEquals(1, writer.getStats().failures());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_WRITER] A full queue makes the caller insert its own payment")
+    public void insertsInlineWhenQueueIsFull(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(paymentRepository.saveAll(ArgumentMatchers.<Payment>anyIterable())).thenAnswer(invocation -> {
+            flushing.countDown();
+            awaitIgnoringInterrupts(release);
+            return saveAll(invocation.getArgument(0));
+        });
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            payment.setId(ids.incrementAndGet());
+            return payment;
+        });
+        writer = start(1, 1, 0, 2000);
+
+        // the writer is busy with the first payment and the second one fills the queue
+        CompletableFuture<Payment> first = writeAsync(payment(0));
+        Assertions.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Payment> second = writeAsync(payment(1));
+        awaitQueued(1);
+
+        Payment third = writer.write(payment(2));
+        Assertions.assertNotNull(third.getId());
+        Assertions.assertEquals(1, writer.getStats().overflows());
+        verify(paymentRepository, times(1)).save(any(Payment.class));
+
+        release.countDown();
+        Assertions.assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+        Assertions.assertNotNull(second.get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_WRITER] stop() writes the payments that are still queued")
+    public void stopDrainsQueue(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(paymentRepository.saveAll(ArgumentMatchers.<Payment>anyIterable())).thenAnswer(invocation -> {
+            flushing.countDown();
+            awaitIgnoringInterrupts(release);
+            return saveAll(invocation.getArgument(0));
+        });
+        writer = start(10, 1, 0, 2000);
+
+        CompletableFuture<Payment> first = writeAsync(payment(0));
+        Assertions.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Payment> queued = writeAsync(payment(1));
+        awaitQueued(1);
+
+        // the writer finishes its batch while stop() waits for it, the queued payment is left to stop()
+        callers.execute(() -> {
+            sleep(200);
+            release.countDown();
+        });
+        writer.stop();
+
+        Assertions.assertFalse(writer.isRunning());
+        Assertions.assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+        Assertions.assertNotNull(queued.get(5, TimeUnit.SECONDS).getId());
+        Assertions.assertEquals(0, writer.getStats().queued());
+        Assertions.assertEquals(2, writer.getStats().inserts());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_WRITER] A caller that times out gets an unsaved copy, not the queued payment")
+    public void timeoutReturnsUnsavedCopy(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        CountDownLatch release = new CountDownLatch(1);
+        when(paymentRepository.saveAll(ArgumentMatchers.<Payment>anyIterable())).thenAnswer(invocation -> {
+            awaitIgnoringInterrupts(release);
+            return saveAll(invocation.getArgument(0));
+        });
+        writer = start(10, 1, 0, 1100);
+
+        Payment payment = payment(7);
+        Payment result = writer.write(payment);
+
+        Assertions.assertNotSame(payment, result);
+        Assertions.assertNull(result.getId());
+        Assertions.assertEquals(7L, result.getCorrelatorId());
+        Assertions.assertEquals(payment.getEmail(), result.getEmail());
+        Assertions.assertEquals(payment.getInitialTimeStamp(), result.getInitialTimeStamp());
+
+        // the writer still owns the queued payment and stores it once the batch commits
+        release.countDown();
+        awaitInserts(1);
+        Assertions.assertNotNull(payment.getId());
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_WRITER] Callers must wait longer than a writer transaction may take")
+    public void rejectsCallerTimeoutWithinTransactionTimeout(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PaymentWriter(paymentRepository, transactionManager, 10, 1, 0, 5000, 5));
+    }
+
+    private PaymentWriter start(int queueCapacity, int maxBatchSize, long maxWaitMs, long callerTimeoutMs) {
+        PaymentWriter paymentWriter = new PaymentWriter(paymentRepository, transactionManager, queueCapacity,
+                maxBatchSize, maxWaitMs, callerTimeoutMs, 1);
+        paymentWriter.start();
+        return paymentWriter;
+    }
+
+    private CompletableFuture<Payment> writeAsync(Payment payment) {
+        return CompletableFuture.supplyAsync(() -> writer.write(payment), callers);
+    }
+
+    private List<Payment> saveAll(Iterable<Payment> payments) {
+        List<Payment> saved = new ArrayList<>();
+        payments.forEach(payment -> {
+            payment.setId(ids.incrementAndGet());
+            saved.add(payment);
+        });
+        batchSizes.add(saved.size());
+        return saved;
+    }
+
+    private void awaitQueued(int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getStats().queued() < queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(queued, writer.getStats().queued());
+    }
+
+    private void awaitInserts(long inserts) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getStats().inserts() < inserts && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(inserts, writer.getStats().inserts());
+    }
+
+    // the writer thread is interrupted by stop(), the mocked insert keeps going like a real commit would
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // keep waiting
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Payment payment(long correlatorId) {
+        return new Payment(new BigDecimal("125.00"), new BigDecimal("125.00"), BigDecimal.ZERO,
+                "writer.user" + correlatorId + "@example.com", "4111111111111111", "123", correlatorId);
+    }
+}
@@ -0,0 +1,91 @@
+package com.postgres;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import com.cache.PaymentSummaryCache;
+import com.postgres.models.Payment;
+import com.postgres.models.PaymentSummary;
+
+@ExtendWith(MockitoExtension.class)
+public class PostgresServiceTest {
+    private static final String EMAIL = "summary.user@example.com";
+
+    @InjectMocks
+    private PostgresService postgresService;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PaymentWriter paymentWriter;
+    @Mock
+    private PaymentSummaryRepository paymentSummaryRepository;
+    @Spy
+    private PaymentSummaryCache paymentSummaryCache = new PaymentSummaryCache(100, 60000);
+
+    @Test
+    @DisplayName("[PAYMENT_SUMMARY] Summaries are cached until the customer's next payment")
+    public void summaryCachedUntilNextPayment(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentSummary before = mock(PaymentSummary.class);
+        PaymentSummary after = mock(PaymentSummary.class);
+        when(paymentSummaryRepository.findById(EMAIL)).thenReturn(Optional.of(before), Optional.of(after));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Assertions.assertSame(before, postgresService.findPaymentSummary(EMAIL));
+        Assertions.assertSame(before, postgresService.findPaymentSummary(EMAIL));
+        verify(paymentSummaryRepository, times(1)).findById(EMAIL);
+
+        // storing a payment changes the summary row, the next read goes to the database
+        postgresService.save(new Payment(BigDecimal.TEN, BigDecimal.TEN, BigDecimal.ZERO, EMAIL,
+                "4111111111111111", "123"));
+        Assertions.assertSame(after, postgresService.findPaymentSummary(EMAIL));
+        verify(paymentSummaryRepository, times(2)).findById(EMAIL);
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_SUMMARY] Deleting a payment drops its customer's cached summary")
+    public void summaryInvalidatedOnDelete(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        PaymentSummary before = mock(PaymentSummary.class);
+        PaymentSummary after = mock(PaymentSummary.class);
+        when(paymentSummaryRepository.findById(EMAIL)).thenReturn(Optional.of(before), Optional.of(after));
+        Payment payment = new Payment(BigDecimal.TEN, BigDecimal.TEN, BigDecimal.ZERO, EMAIL,
+                "4111111111111111", "123");
+        payment.setId(42L);
+        when(paymentRepository.findById(42L)).thenReturn(Optional.of(payment));
+
+        Assertions.assertSame(before, postgresService.findPaymentSummary(EMAIL));
+        postgresService.deleteById(42L);
+
+        verify(paymentRepository).deleteById(42L);
+        Assertions.assertSame(after, postgresService.findPaymentSummary(EMAIL));
+        verify(paymentSummaryRepository, times(2)).findById(EMAIL);
+    }
+
+    @Test
+    @DisplayName("[PAYMENT_SUMMARY] Customers without payments get zero totals")
+    public void emptySummary(TestInfo testInfo) {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        when(paymentSummaryRepository.findById("new.user@example.com")).thenReturn(Optional.empty());
+
+        PaymentSummary summary = postgresService.findPaymentSummary("new.user@example.com");
+
+        Assertions.assertEquals("new.user@example.com", summary.getEmail());
+        Assertions.assertEquals(0, summary.getPaymentCount());
+        Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(summary.getTotalPaid()));
+        Assertions.assertNull(summary.getLastPaymentAt());
+    }
+}
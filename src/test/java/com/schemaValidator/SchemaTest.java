@@ -14,19 +14,22 @@ import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ResourceLoader;
 import com.SchemaService;
+import com.schema.SchemaRegistry;
 import com.schema.SchemaValidator;  
 
-@SpringBootTest(classes = SchemaValidator.class)
+@SpringBootTest(classes = {SchemaValidator.class, SchemaRegistry.class})
 @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class})
 class SchemaValidatorTest {
     @Autowired
     private ResourceLoader resourceLoader;
 
     private SchemaValidator schemaValidator;
+    private SchemaRegistry schemaRegistry;
 
     @BeforeEach
     void setup() {
-        schemaValidator = new SchemaValidator(resourceLoader);
+        schemaRegistry = new SchemaRegistry(resourceLoader);
+        schemaValidator = new SchemaValidator(resourceLoader, schemaRegistry);
     }
 
     @Test
@@ -164,6 +167,44 @@ class SchemaValidatorTest {
         Assertions.assertFalse(validate(topicName, validJson));
     }
 
+    @Test
+    @DisplayName("[SCHEMA] Registry compiles a topic schema once")
+    void testRegistryCachesSchema(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        JSONObject validJson = new JSONObject("""
+            {
+                "topicName": "PaymentRequest",
+                "correlatorId": 1123,
+                "paymentAmount": 20.00,
+                "email": "bryzntest@gmail.com",
+                "creditCard": "6011000990139424",
+                "cvc": "321"
+            }
+        """);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(schemaValidator.validateJson("PaymentRequest", validJson));
+        }
+
+        SchemaRegistry.Stats stats = schemaRegistry.getStats();
+        Assertions.assertEquals(1, stats.compilations());
+        Assertions.assertEquals(1, stats.misses());
+        Assertions.assertEquals(4, stats.hits());
+    }
+
+    @Test
+    @DisplayName("[SCHEMA] Registry reload recompiles known topics")
+    void testRegistryReload(TestInfo testInfo) throws Exception {
+        System.out.println("\n-----------Running: " + testInfo.getDisplayName() + "-----------");
+        schemaRegistry.getSchema("PaymentRequest");
+        schemaRegistry.reload();
+
+        SchemaRegistry.Stats stats = schemaRegistry.getStats();
+        Assertions.assertEquals(2, stats.compilations());
+        Assertions.assertEquals(1, stats.size());
+        Assertions.assertNotNull(schemaRegistry.getSchema("PaymentRequest"));
+    }
+
     private boolean validate(String topicName, JSONObject validJson)
     {
         URL schemaUrl = getClass().getClassLoader().getResource(SchemaService.getPathFor(topicName));